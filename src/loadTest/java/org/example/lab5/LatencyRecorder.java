@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects per-request latencies and outcomes for one operation of the load
+ * test. Samples are kept raw so percentiles are exact rather than bucketed;
+ * a run of a few minutes at a few thousand requests per second fits easily.
+ */
+final class LatencyRecorder {
+
+    private long[] latencies = new long[1 << 16];
+
+    private int count;
+
+    private long errors;
+
+    synchronized void success(long latencyNanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count << 1);
+        }
+        latencies[count++] = latencyNanos;
+    }
+
+    synchronized void error() {
+        errors++;
+    }
+
+    synchronized void merge(LatencyRecorder other) {
+        synchronized (other) {
+            for (int i = 0; i < other.count; i++) {
+                success(other.latencies[i]);
+            }
+            errors += other.errors;
+        }
+    }
+
+    /**
+     * Summarises the recorded samples; latencies are reported in milliseconds
+     * and throughput counts successful requests only.
+     */
+    synchronized Map<String, Object> summary(double elapsedSeconds) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        long requests = count + errors;
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", requests);
+        summary.put("errors", errors);
+        summary.put("errorRate", requests == 0 ? 0.0 : (double) errors / requests);
+        summary.put("throughputPerSecond", elapsedSeconds <= 0 ? 0.0 : count / elapsedSeconds);
+        summary.put("p50Ms", percentileMillis(sorted, 0.50));
+        summary.put("p99Ms", percentileMillis(sorted, 0.99));
+        summary.put("p999Ms", percentileMillis(sorted, 0.999));
+        summary.put("maxMs", sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1_000_000.0);
+        return summary;
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
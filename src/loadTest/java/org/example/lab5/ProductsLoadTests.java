@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.example.lab5.models.Product;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.services.ProductSearchService;
+import org.example.lab5.services.ProductSnapshotService;
+import org.example.lab5.tenancy.TenantContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test: boots the application on a random port against an
+ * in-memory database, seeds the catalog and drives a mixed read/write
+ * workload over HTTP at a fixed arrival rate. Latency is measured from the
+ * moment a request was scheduled to be sent, so a stalled server shows up in
+ * the percentiles instead of silently lowering the offered load.
+ * <p>
+ * Results are written as JSON to {@code loadtest.output} and the run fails if
+ * the overall p99, error rate or throughput cross the configured thresholds,
+ * or if p99 regressed against an optional baseline results file. Run with
+ * {@code ./gradlew loadTest -Dloadtest.ratePerSecond=500 -Dloadtest.durationSeconds=60}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+public class ProductsLoadTests {
+
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.durationSeconds", 30);
+
+    private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmupSeconds", 5);
+
+    private static final int RATE_PER_SECOND = Integer.getInteger("loadtest.ratePerSecond", 200);
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 64);
+
+    private static final int SEED_PRODUCTS = Integer.getInteger("loadtest.seedProducts", 10_000);
+
+    private static final String MIX = System.getProperty("loadtest.mix", "read=60,list=15,search=10,create=10,patch=5");
+
+    private static final double MAX_P99_MS = Double.parseDouble(System.getProperty("loadtest.maxP99Ms", "250"));
+
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.maxErrorRate", "0.01"));
+
+    private static final double MIN_THROUGHPUT = Double.parseDouble(
+            System.getProperty("loadtest.minThroughput", String.valueOf(RATE_PER_SECOND * 0.9)));
+
+    private static final String BASELINE = System.getProperty("loadtest.baseline");
+
+    private static final double MAX_P99_REGRESSION = Double.parseDouble(
+            System.getProperty("loadtest.maxP99Regression", "0.20"));
+
+    private static final String OUTPUT = System.getProperty("loadtest.output", "build/load-test/results.json");
+
+    private static final String[] WORDS = {
+            "laptop", "phone", "monitor", "keyboard", "mouse", "cable", "charger", "headset", "camera", "tablet"
+    };
+
+    private enum Operation { READ, LIST, SEARCH, CREATE, PATCH }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private ProductSnapshotService productSnapshotService;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private long[] productIds;
+
+    @Test
+    void mixedWorkload_StaysWithinThresholds() throws Exception {
+        seed();
+        Operation[] schedule = schedule(parseMix(MIX));
+        Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new LatencyRecorder());
+        }
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / RATE_PER_SECOND;
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intended = start + i * intervalNanos;
+                if (intended >= end) {
+                    break;
+                }
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Operation operation = schedule[(int) (i % schedule.length)];
+                LatencyRecorder recorder = intended >= measureFrom ? recorders.get(operation) : null;
+                if (!inFlight.tryAcquire()) {
+                    // Client-side saturation: the request could not be issued on time.
+                    if (recorder != null) {
+                        recorder.error();
+                    }
+                    continue;
+                }
+                executor.execute(() -> {
+                    try {
+                        boolean ok = send(operation);
+                        if (recorder != null) {
+                            if (ok) {
+                                recorder.success(System.nanoTime() - intended);
+                            } else {
+                                recorder.error();
+                            }
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - measureFrom) / 1e9;
+
+        Map<String, Object> report = report(recorders, elapsedSeconds);
+        Path output = Path.of(OUTPUT);
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), report);
+        System.out.println("loadtest: results written to " + output.toAbsolutePath());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> overall = (Map<String, Object>) report.get("overall");
+        double p99 = (double) overall.get("p99Ms");
+        double errorRate = (double) overall.get("errorRate");
+        double throughput = (double) overall.get("throughputPerSecond");
+        System.out.printf("loadtest: throughput=%.1f/s p50=%.2f ms p99=%.2f ms p999=%.2f ms errors=%.4f%n",
+                throughput, overall.get("p50Ms"), p99, overall.get("p999Ms"), errorRate);
+
+        assertTrue(p99 <= MAX_P99_MS, "p99 " + p99 + " ms exceeds " + MAX_P99_MS + " ms");
+        assertTrue(errorRate <= MAX_ERROR_RATE, "error rate " + errorRate + " exceeds " + MAX_ERROR_RATE);
+        assertTrue(throughput >= MIN_THROUGHPUT, "throughput " + throughput + "/s below " + MIN_THROUGHPUT + "/s");
+        if (BASELINE != null) {
+            double baselineP99 = objectMapper.readTree(Path.of(BASELINE).toFile()).path("overall").path("p99Ms").asDouble();
+            assertTrue(p99 <= baselineP99 * (1 + MAX_P99_REGRESSION),
+                    "p99 " + p99 + " ms regressed more than " + MAX_P99_REGRESSION + " against baseline " + baselineP99 + " ms");
+        }
+    }
+
+    private boolean send(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        HttpRequest request = switch (operation) {
+            case READ -> get("/api/products/" + randomId(random));
+            case LIST -> get("/api/products?pageNumber=" + random.nextInt(50) + "&pageSize=20");
+            case SEARCH -> get("/api/products/search?q=" + WORDS[random.nextInt(WORDS.length)] + "&limit=20");
+            case CREATE -> request("/api/products")
+                    .header("Content-Type", "application/json")
+                    .header("Idempotency-Key", UUID.randomUUID().toString())
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"name\":\"" + name(random.nextLong(1_000_000)) + "\",\"price\":"
+                                    + random.nextLong(1, 10_000) + ",\"quantity\":" + random.nextLong(100) + "}"))
+                    .build();
+            case PATCH -> request("/api/products/" + randomId(random))
+                    .header("Content-Type", "application/merge-patch+json")
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"quantity\":" + random.nextLong(100) + "}"))
+                    .build();
+        };
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() / 100 == 2;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).timeout(Duration.ofSeconds(10));
+    }
+
+    private long randomId(ThreadLocalRandom random) {
+        return productIds[random.nextInt(productIds.length)];
+    }
+
+    private void seed() {
+        productRepository.deleteAll();
+        productIds = new long[SEED_PRODUCTS];
+        int batchSize = 1_000;
+        for (int from = 0; from < SEED_PRODUCTS; from += batchSize) {
+            List<Product> batch = new ArrayList<>(batchSize);
+            for (int i = from; i < Math.min(SEED_PRODUCTS, from + batchSize); i++) {
+                Product product = new Product();
+                product.setName(name(i));
+                product.setPrice(1L + i % 10_000);
+                product.setQuantity((long) (i % 100));
+                batch.add(product);
+            }
+            List<Product> saved = productRepository.saveAll(batch);
+            for (int i = 0; i < saved.size(); i++) {
+                productIds[from + i] = saved.get(i).getId();
+            }
+        }
+        // Seeding bypasses the service, so the in-memory views built at startup are still empty.
+        TenantContext.call(TenantContext.DEFAULT_TENANT, productSearchService::rebuild);
+        if (productSnapshotService.isEnabled()) {
+            TenantContext.call(TenantContext.DEFAULT_TENANT, productSnapshotService::reload);
+        }
+    }
+
+    private static String name(long seed) {
+        return WORDS[(int) (seed % WORDS.length)] + " model " + seed;
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid loadtest.mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in loadtest.mix: " + entry);
+            }
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+        }
+        return weights;
+    }
+
+    /**
+     * Expands the weights into a shuffled round of operations which the driver
+     * cycles through, so the mix holds exactly over every round.
+     */
+    private static Operation[] schedule(Map<Operation, Integer> weights) {
+        List<Operation> round = new ArrayList<>();
+        weights.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                round.add(operation);
+            }
+        });
+        if (round.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix must contain at least one positive weight");
+        }
+        Collections.shuffle(round, new Random(42));
+        return round.toArray(Operation[]::new);
+    }
+
+    private static Map<String, Object> report(Map<Operation, LatencyRecorder> recorders, double elapsedSeconds) {
+        Map<String, Object> configuration = new LinkedHashMap<>();
+        configuration.put("durationSeconds", DURATION_SECONDS);
+        configuration.put("warmupSeconds", WARMUP_SECONDS);
+        configuration.put("ratePerSecond", RATE_PER_SECOND);
+        configuration.put("concurrency", CONCURRENCY);
+        configuration.put("seedProducts", SEED_PRODUCTS);
+        configuration.put("mix", MIX);
+
+        LatencyRecorder overall = new LatencyRecorder();
+        Map<String, Object> operations = new LinkedHashMap<>();
+        recorders.forEach((operation, recorder) -> {
+            overall.merge(recorder);
+            operations.put(operation.name().toLowerCase(), recorder.summary(elapsedSeconds));
+        });
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("configuration", configuration);
+        report.put("overall", overall.summary(elapsedSeconds));
+        report.put("operations", operations);
+        return report;
+    }
+}
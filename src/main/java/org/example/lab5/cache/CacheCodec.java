@@ -0,0 +1,12 @@
+package org.example.lab5.cache;
+
+/**
+ * Converts cached values to and from the bytes kept in both cache tiers.
+ * Values are decoded afresh on every hit, so callers never share an instance.
+ */
+public interface CacheCodec<V> {
+
+    byte[] encode(V value);
+
+    V decode(byte[] bytes);
+}
@@ -0,0 +1,12 @@
+package org.example.lab5.cache;
+
+/**
+ * Encoded cache value tagged with the version of its key at the time it was
+ * loaded. Every invalidation bumps the key's version, so an entry loaded
+ * before a write can never be stored after it.
+ *
+ * @param version version of the key the value was loaded under
+ * @param value   encoded value
+ */
+public record CacheEntry(long version, byte[] value) {
+}
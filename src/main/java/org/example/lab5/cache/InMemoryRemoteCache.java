@@ -0,0 +1,125 @@
+package org.example.lab5.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process {@link RemoteCache}. Several {@link TwoLevelCache}s sharing one
+ * instance behave like replicas sharing a remote tier, which is how the
+ * tests exercise invalidation; invalidations are delivered synchronously.
+ * <p>
+ * A key's version is kept for {@code versionRetention} after its last
+ * invalidation, and then dropped together with any expired value, so keys
+ * that are only ever invalidated do not accumulate. New versions are drawn
+ * from one counter for all keys, so a key whose version was dropped still
+ * gets a version above any copy other instances may hold. The retention only
+ * has to outlast the slowest load.
+ */
+public class InMemoryRemoteCache implements RemoteCache {
+
+    private final long versionRetentionNanos;
+
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Long> leases = new ConcurrentHashMap<>();
+
+    private final List<InvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong versions = new AtomicLong();
+
+    private final AtomicLong nextSweepAtNanos;
+
+    /**
+     * @param versionRetention how long the version of an invalidated key is
+     *                         kept; at least the longest cache time-to-live
+     */
+    public InMemoryRemoteCache(Duration versionRetention) {
+        this.versionRetentionNanos = versionRetention.toNanos();
+        this.nextSweepAtNanos = new AtomicLong(System.nanoTime() + this.versionRetentionNanos);
+    }
+
+    @Override
+    public CacheEntry get(String key) {
+        Slot slot = this.slots.get(key);
+        if (slot == null || slot.entry() == null || slot.expiresAtNanos() - System.nanoTime() <= 0) {
+            return null;
+        }
+        return slot.entry();
+    }
+
+    @Override
+    public long version(String key) {
+        Slot slot = this.slots.get(key);
+        return slot == null ? 0L : slot.version();
+    }
+
+    @Override
+    public boolean putIfVersion(String key, CacheEntry entry, Duration ttl) {
+        long now = System.nanoTime();
+        this.sweepIfDue(now);
+        long expiresAtNanos = now + ttl.toNanos();
+        Slot stored = this.slots.compute(key, (k, current) -> {
+            long version = current == null ? 0L : current.version();
+            long retainUntilNanos = current == null ? expiresAtNanos : current.retainUntilNanos();
+            return version == entry.version() ? new Slot(version, entry, expiresAtNanos, retainUntilNanos) : current;
+        });
+        return stored != null && stored.entry() == entry;
+    }
+
+    @Override
+    public long invalidate(String key) {
+        long now = System.nanoTime();
+        this.sweepIfDue(now);
+        Slot slot = this.slots.compute(key,
+                (k, current) -> new Slot(this.versions.incrementAndGet(), null, 0L, now + this.versionRetentionNanos));
+        for (InvalidationListener listener : this.listeners) {
+            listener.invalidated(key, slot.version());
+        }
+        return slot.version();
+    }
+
+    @Override
+    public void subscribe(InvalidationListener listener) {
+        this.listeners.add(listener);
+    }
+
+    @Override
+    public boolean tryLease(String key, Duration ttl) {
+        long now = System.nanoTime();
+        long expiresAtNanos = now + ttl.toNanos();
+        Long holder = this.leases.compute(key,
+                (k, current) -> current == null || current - now <= 0 ? expiresAtNanos : current);
+        return holder == expiresAtNanos;
+    }
+
+    @Override
+    public void releaseLease(String key) {
+        this.leases.remove(key);
+    }
+
+    /**
+     * Drops slots whose value has expired and whose version is past its
+     * retention; runs at most once per retention period.
+     */
+    private void sweepIfDue(long now) {
+        long due = this.nextSweepAtNanos.get();
+        if (now - due < 0 || !this.nextSweepAtNanos.compareAndSet(due, now + this.versionRetentionNanos)) {
+            return;
+        }
+        this.slots.forEach((key, slot) -> {
+            if (slot.isDroppable(now)) {
+                this.slots.remove(key, slot);
+            }
+        });
+    }
+
+    private record Slot(long version, CacheEntry entry, long expiresAtNanos, long retainUntilNanos) {
+
+        boolean isDroppable(long now) {
+            return (this.entry == null || this.expiresAtNanos - now <= 0) && this.retainUntilNanos - now <= 0;
+        }
+    }
+}
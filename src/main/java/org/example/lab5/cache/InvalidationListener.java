@@ -0,0 +1,16 @@
+package org.example.lab5.cache;
+
+/**
+ * Receives the invalidations broadcast by a {@link RemoteCache}, including
+ * those issued by this instance.
+ */
+@FunctionalInterface
+public interface InvalidationListener {
+
+    /**
+     * @param key     invalidated key
+     * @param version version of the key after the invalidation; entries with
+     *                a lower version are stale
+     */
+    void invalidated(String key, long version);
+}
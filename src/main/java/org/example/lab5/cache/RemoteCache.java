@@ -0,0 +1,58 @@
+package org.example.lab5.cache;
+
+import java.time.Duration;
+
+/**
+ * Shared second-level cache tier, reachable from every instance of the
+ * service. Implementations back it with a networked store (for example a
+ * Redis hash per key plus a pub/sub channel for invalidations); the
+ * in-process {@link InMemoryRemoteCache} stands in for it in tests and
+ * single-instance deployments.
+ * <p>
+ * Each key has a version that grows with every invalidation. Values are
+ * stored conditionally on the version they were loaded under, and
+ * invalidation bumps the version and tells every subscribed instance about
+ * it. Implementations may forget the version of a key that has not been
+ * invalidated for longer than any cached copy can live.
+ */
+public interface RemoteCache {
+
+    /**
+     * @return the live entry for {@code key}, or {@code null}
+     */
+    CacheEntry get(String key);
+
+    /**
+     * @return the current version of {@code key}; {@code 0} for keys that
+     * were never invalidated or whose version was forgotten
+     */
+    long version(String key);
+
+    /**
+     * Stores {@code entry} unless {@code key} has been invalidated since the
+     * entry's version was read.
+     *
+     * @return whether the entry was stored
+     */
+    boolean putIfVersion(String key, CacheEntry entry, Duration ttl);
+
+    /**
+     * Drops the value of {@code key}, bumps its version and broadcasts the
+     * new version to every subscriber.
+     *
+     * @return the new version
+     */
+    long invalidate(String key);
+
+    void subscribe(InvalidationListener listener);
+
+    /**
+     * Tries to become the only instance loading {@code key}. The lease expires
+     * by itself after {@code ttl}, so a crashed loader cannot block the key.
+     *
+     * @return whether the lease was acquired
+     */
+    boolean tryLease(String key, Duration ttl);
+
+    void releaseLease(String key);
+}
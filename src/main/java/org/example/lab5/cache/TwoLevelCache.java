@@ -0,0 +1,294 @@
+package org.example.lab5.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache with a small per-instance near-cache (L1) in front of a
+ * shared {@link RemoteCache} (L2).
+ * <p>
+ * Misses are protected against stampedes twice: concurrent misses for a key
+ * on one instance wait for a single load, and across instances the loader
+ * takes a lease in L2 so the others poll L2 for its result instead of hitting
+ * the database. Loaded values are stored under the key version read before
+ * the load, so a value that raced with a write is dropped rather than cached.
+ * Invalidations are broadcast through L2; the L1 time-to-live bounds how long
+ * an instance that missed a broadcast can serve a stale value.
+ * <p>
+ * Publishes {@code lab5.cache.requests} per tier and result, the hit ratio of
+ * each tier as {@code lab5.cache.hit.ratio}, and counters for loads, collapsed
+ * misses and invalidations, all tagged with the cache name and any extra
+ * tags passed in, such as the tenant of a per-tenant partition.
+ */
+public class TwoLevelCache<V> {
+
+    private static final long POLL_INTERVAL_MS = 10;
+
+    private static final String L1 = "l1";
+
+    private static final String L2 = "l2";
+
+    private final RemoteCache remote;
+
+    private final CacheCodec<V> codec;
+
+    private final int maxLocalEntries;
+
+    private final long localTtlNanos;
+
+    private final Duration remoteTtl;
+
+    private final Duration leaseTimeout;
+
+    private final Map<String, LocalEntry> local = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final ConcurrentHashMap<String, CompletableFuture<CacheEntry>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Bumped on every invalidation seen by this instance; a load only fills L1
+     * if no invalidation arrived while it ran.
+     */
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+
+    private final Counter l1Hits;
+
+    private final Counter l1Misses;
+
+    private final Counter l2Hits;
+
+    private final Counter l2Misses;
+
+    private final Counter loads;
+
+    private final Counter collapsed;
+
+    private final Counter invalidations;
+
+    /**
+     * Subscribes to the invalidations of {@code remote}.
+     *
+     * @param maxLocalEntries L1 capacity; least recently used entries are evicted first
+     * @param localTtl        how long an L1 entry is trusted without hearing from L2
+     * @param remoteTtl       time-to-live of L2 entries
+     * @param leaseTimeout    how long to wait for another instance's load, and
+     *                        how long a lease outlives a crashed loader
+     */
+    public TwoLevelCache(String name, RemoteCache remote, CacheCodec<V> codec, MeterRegistry meterRegistry,
+                         int maxLocalEntries, Duration localTtl, Duration remoteTtl, Duration leaseTimeout) {
+        this(name, Tags.empty(), remote, codec, meterRegistry, maxLocalEntries, localTtl, remoteTtl, leaseTimeout);
+    }
+
+    /**
+     * @param tags added to every meter of this cache besides its name
+     */
+    public TwoLevelCache(String name, Tags tags, RemoteCache remote, CacheCodec<V> codec, MeterRegistry meterRegistry,
+                         int maxLocalEntries, Duration localTtl, Duration remoteTtl, Duration leaseTimeout) {
+        Tags cacheTags = tags.and("cache", name);
+        this.remote = remote;
+        this.codec = codec;
+        this.maxLocalEntries = maxLocalEntries;
+        this.localTtlNanos = localTtl.toNanos();
+        this.remoteTtl = remoteTtl;
+        this.leaseTimeout = leaseTimeout;
+        this.l1Hits = requests(meterRegistry, cacheTags, L1, "hit");
+        this.l1Misses = requests(meterRegistry, cacheTags, L1, "miss");
+        this.l2Hits = requests(meterRegistry, cacheTags, L2, "hit");
+        this.l2Misses = requests(meterRegistry, cacheTags, L2, "miss");
+        this.loads = Counter.builder("lab5.cache.loads").tags(cacheTags).register(meterRegistry);
+        this.collapsed = Counter.builder("lab5.cache.loads.collapsed").tags(cacheTags).register(meterRegistry);
+        this.invalidations = Counter.builder("lab5.cache.invalidations").tags(cacheTags).register(meterRegistry);
+        Gauge.builder("lab5.cache.hit.ratio", this, TwoLevelCache::l1HitRatio)
+                .tags(cacheTags).tag("tier", L1).register(meterRegistry);
+        Gauge.builder("lab5.cache.hit.ratio", this, TwoLevelCache::l2HitRatio)
+                .tags(cacheTags).tag("tier", L2).register(meterRegistry);
+        Gauge.builder("lab5.cache.local.size", this, TwoLevelCache::localSize)
+                .tags(cacheTags).register(meterRegistry);
+        remote.subscribe(this::onInvalidated);
+    }
+
+    /**
+     * Returns the cached value of {@code key}, loading it with {@code loader}
+     * on a miss in both tiers. {@code null} results are returned but not cached.
+     */
+    public V get(String key, Supplier<V> loader) {
+        LocalEntry cached = this.localGet(key);
+        if (cached != null) {
+            this.l1Hits.increment();
+            return this.codec.decode(cached.value());
+        }
+        this.l1Misses.increment();
+
+        CompletableFuture<CacheEntry> own = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> running = this.inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            this.collapsed.increment();
+            CacheEntry entry = join(running);
+            return entry == null ? null : this.codec.decode(entry.value());
+        }
+        try {
+            return this.loadAsLeader(key, loader, own);
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Drops {@code key} from this instance right away and from every other
+     * instance once the broadcast reaches it.
+     */
+    public void invalidate(String key) {
+        this.invalidations.increment();
+        long version = this.remote.invalidate(key);
+        this.onInvalidated(key, version);
+    }
+
+    public double l1HitRatio() {
+        return ratio(this.l1Hits.count(), this.l1Misses.count());
+    }
+
+    public double l2HitRatio() {
+        return ratio(this.l2Hits.count(), this.l2Misses.count());
+    }
+
+    private V loadAsLeader(String key, Supplier<V> loader, CompletableFuture<CacheEntry> own) {
+        long epoch = this.invalidationEpoch.get();
+        CacheEntry entry = this.remote.get(key);
+        boolean leased = entry == null && this.remote.tryLease(key, this.leaseTimeout);
+        if (entry == null && !leased) {
+            entry = this.awaitRemote(key);
+        }
+        if (entry != null) {
+            this.l2Hits.increment();
+            this.localPut(key, entry, epoch);
+            own.complete(entry);
+            return this.codec.decode(entry.value());
+        }
+        this.l2Misses.increment();
+
+        try {
+            long version = this.remote.version(key);
+            V value = loader.get();
+            this.loads.increment();
+            if (value == null) {
+                own.complete(null);
+                return null;
+            }
+            CacheEntry loaded = new CacheEntry(version, this.codec.encode(value));
+            if (this.remote.putIfVersion(key, loaded, this.remoteTtl)) {
+                this.localPut(key, loaded, epoch);
+            }
+            own.complete(loaded);
+            return value;
+        } finally {
+            if (leased) {
+                this.remote.releaseLease(key);
+            }
+        }
+    }
+
+    /**
+     * Polls L2 while another instance holds the load lease.
+     *
+     * @return the entry it stored, or {@code null} if none appeared in time
+     */
+    private CacheEntry awaitRemote(String key) {
+        long deadline = System.nanoTime() + this.leaseTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            CacheEntry entry = this.remote.get(key);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void onInvalidated(String key, long version) {
+        this.invalidationEpoch.incrementAndGet();
+        synchronized (this.local) {
+            LocalEntry entry = this.local.get(key);
+            if (entry != null && entry.version() < version) {
+                this.local.remove(key);
+            }
+        }
+    }
+
+    private LocalEntry localGet(String key) {
+        synchronized (this.local) {
+            LocalEntry entry = this.local.get(key);
+            if (entry != null && entry.expiresAtNanos() - System.nanoTime() <= 0) {
+                this.local.remove(key);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void localPut(String key, CacheEntry entry, long epoch) {
+        if (this.maxLocalEntries <= 0) {
+            return;
+        }
+        LocalEntry localEntry = new LocalEntry(entry.version(), entry.value(), System.nanoTime() + this.localTtlNanos);
+        synchronized (this.local) {
+            if (this.invalidationEpoch.get() != epoch) {
+                return;
+            }
+            this.local.put(key, localEntry);
+            if (this.local.size() > this.maxLocalEntries) {
+                this.local.remove(this.local.keySet().iterator().next());
+            }
+        }
+    }
+
+    private int localSize() {
+        synchronized (this.local) {
+            return this.local.size();
+        }
+    }
+
+    private static CacheEntry join(CompletableFuture<CacheEntry> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, Tags tags, String tier, String result) {
+        return Counter.builder("lab5.cache.requests")
+                .tags(tags)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static double ratio(double hits, double misses) {
+        double total = hits + misses;
+        return total == 0 ? 0.0 : hits / total;
+    }
+
+    private record LocalEntry(long version, byte[] value, long expiresAtNanos) {
+    }
+}
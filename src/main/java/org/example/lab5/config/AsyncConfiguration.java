@@ -0,0 +1,24 @@
+package org.example.lab5.config;
+
+import org.example.lab5.deadline.DeadlineTaskDecorator;
+import org.example.lab5.tenancy.TenantTaskDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.CompositeTaskDecorator;
+
+import java.util.List;
+
+/**
+ * Request-scoped state that {@code @Async} tasks inherit from the submitting
+ * thread. Boot applies a single {@link TaskDecorator} bean to the application
+ * task executor, so the decorators are combined here.
+ */
+@Configuration(proxyBeanMethods = false)
+public class AsyncConfiguration {
+
+    @Bean
+    public TaskDecorator taskDecorator() {
+        return new CompositeTaskDecorator(List.of(new TenantTaskDecorator(), new DeadlineTaskDecorator()));
+    }
+}
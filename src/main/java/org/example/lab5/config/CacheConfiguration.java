@@ -0,0 +1,39 @@
+package org.example.lab5.config;
+
+import org.example.lab5.cache.InMemoryRemoteCache;
+import org.example.lab5.cache.RemoteCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Shared cache tier behind the per-instance near-caches. Selected with
+ * {@code lab5.cache.remote}; {@code memory} keeps it in process, which is
+ * only consistent while a single instance is running, so enabling the product
+ * cache on top of it logs a warning at startup. Deployments with several
+ * replicas set another value and register their own {@link RemoteCache} bean.
+ */
+@Configuration(proxyBeanMethods = false)
+public class CacheConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
+
+    @Bean
+    @ConditionalOnProperty(name = "lab5.cache.remote", havingValue = "memory", matchIfMissing = true)
+    public RemoteCache remoteCache(Environment environment) {
+        if (environment.getProperty("lab5.products.cache.enabled", Boolean.class, false)) {
+            log.warn("lab5.products.cache.enabled=true with lab5.cache.remote=memory: the shared tier and its "
+                    + "invalidations stay inside this instance, so other replicas will serve stale products. "
+                    + "Only run a single instance with this setting.");
+        }
+        long versionRetentionMillis = Math.max(
+                environment.getProperty("lab5.products.cache.local-ttl-ms", Long.class, 30_000L),
+                environment.getProperty("lab5.products.cache.remote-ttl-ms", Long.class, 600_000L));
+        return new InMemoryRemoteCache(Duration.ofMillis(versionRetentionMillis));
+    }
+}
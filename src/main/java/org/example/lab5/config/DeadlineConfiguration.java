@@ -0,0 +1,45 @@
+package org.example.lab5.config;
+
+import org.example.lab5.deadline.DeadlineAwareTransactionManager;
+import org.example.lab5.deadline.DeadlineInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Wires request deadlines into Spring MVC and the JPA transaction manager,
+ * which replaces the one Boot would create. Propagation to async tasks is
+ * set up in {@link AsyncConfiguration}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class DeadlineConfiguration implements WebMvcConfigurer {
+
+    private final DeadlineInterceptor deadlineInterceptor;
+
+    public DeadlineConfiguration(DeadlineInterceptor deadlineInterceptor) {
+        this.deadlineInterceptor = deadlineInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this.deadlineInterceptor).addPathPatterns("/api/**");
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerDeferredResultInterceptors(this.deadlineInterceptor);
+        configurer.registerCallableInterceptors(this.deadlineInterceptor);
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> customizers) {
+        DeadlineAwareTransactionManager transactionManager = new DeadlineAwareTransactionManager();
+        customizers.ifAvailable(c -> c.customize(transactionManager));
+        return transactionManager;
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.lab5.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Sizes the Hikari pool from the number of available cores using the
+ * PostgreSQL rule of thumb {@code cores * connectionsPerCore + spindles},
+ * unless {@code spring.datasource.hikari.maximum-pool-size} was set explicitly.
+ */
+public class HikariPoolSizingPostProcessor implements BeanPostProcessor {
+
+    private final int connectionsPerCore;
+
+    private final int spindleCount;
+
+    private final boolean explicitlySized;
+
+    public HikariPoolSizingPostProcessor(int connectionsPerCore, int spindleCount, boolean explicitlySized) {
+        this.connectionsPerCore = connectionsPerCore;
+        this.spindleCount = spindleCount;
+        this.explicitlySized = explicitlySized;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource dataSource && !this.explicitlySized) {
+            int poolSize = poolSize();
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setMinimumIdle(poolSize);
+        }
+        return bean;
+    }
+
+    public int poolSize() {
+        return Runtime.getRuntime().availableProcessors() * this.connectionsPerCore + this.spindleCount;
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.lab5.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Takes generator buffers from a pool shared by all threads rather than one
+ * per thread, so responses written from the async task executor reuse
+ * buffers instead of allocating them per request.
+ */
+@Configuration(proxyBeanMethods = false)
+public class JacksonConfiguration {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer sharedRecyclerPool() {
+        return builder -> builder.factory(JsonFactory.builder()
+                .recyclerPool(JsonRecyclerPools.sharedConcurrentDequePool())
+                .build());
+    }
+}
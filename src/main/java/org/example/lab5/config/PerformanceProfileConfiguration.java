@@ -0,0 +1,23 @@
+package org.example.lab5.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+/**
+ * Beans that only apply to the {@code perf} profile; the JDBC and Hibernate
+ * settings themselves live in {@code application-perf.properties}.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("perf")
+public class PerformanceProfileConfiguration {
+
+    @Bean
+    public static HikariPoolSizingPostProcessor hikariPoolSizingPostProcessor(Environment environment) {
+        return new HikariPoolSizingPostProcessor(
+                environment.getProperty("lab5.datasource.connections-per-core", Integer.class, 2),
+                environment.getProperty("lab5.datasource.spindle-count", Integer.class, 1),
+                environment.containsProperty("spring.datasource.hikari.maximum-pool-size"));
+    }
+}
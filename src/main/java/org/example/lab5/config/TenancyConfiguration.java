@@ -0,0 +1,27 @@
+package org.example.lab5.config;
+
+import org.example.lab5.tenancy.TenantConnectionProvider;
+import org.example.lab5.tenancy.TenantIdentifierResolver;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Turns on Hibernate's discriminator-based multi-tenancy: sessions are opened
+ * for the request's tenant, queries on tenant-owned entities are filtered by
+ * it, and connections come from the tenant's own pool.
+ */
+@Configuration(proxyBeanMethods = false)
+public class TenancyConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer tenancyHibernatePropertiesCustomizer(
+            TenantConnectionProvider connectionProvider,
+            TenantIdentifierResolver identifierResolver) {
+        return properties -> {
+            properties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, connectionProvider);
+            properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, identifierResolver);
+        };
+    }
+}
@@ -1,34 +1,107 @@
 package org.example.lab5.controllers;
 
+import org.example.lab5.deadline.Deadline;
 import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductScanPage;
+import org.example.lab5.models.ProductStats;
+import org.example.lab5.models.TotalCountMode;
+import org.example.lab5.services.ProductCountService;
+import org.example.lab5.services.ProductPatchService;
+import org.example.lab5.services.ProductSearchService;
 import org.example.lab5.services.ProductService;
+import org.example.lab5.services.ProductStatsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.repository.query.Param;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductsController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final ProductService productService;
 
+    private final ProductCountService productCountService;
+
+    private final ProductSearchService productSearchService;
+
+    private final ProductStatsService productStatsService;
+
+    private final ProductPatchService productPatchService;
+
     @Autowired
-    public ProductsController(ProductService productService) {
+    public ProductsController(
+            ProductService productService,
+            ProductCountService productCountService,
+            ProductSearchService productSearchService,
+            ProductStatsService productStatsService,
+            ProductPatchService productPatchService) {
         this.productService = productService;
+        this.productCountService = productCountService;
+        this.productSearchService = productSearchService;
+        this.productStatsService = productStatsService;
+        this.productPatchService = productPatchService;
     }
 
     @PostMapping
-    public Long create(@RequestBody Product product) {
-        return this.productService.create(product);
+    public Long create(
+            @RequestBody Product product,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return this.productService.create(product, idempotencyKey);
     }
 
     @GetMapping
-    public List<Product> findAll(
+    @Deadline("${lab5.deadline.products.find-all-ms}")
+    public CompletableFuture<ResponseEntity<List<Product>>> findAll(
             @RequestParam int pageNumber,
-            @RequestParam int pageSize) {
-        return this.productService.findAll(pageNumber, pageSize);
+            @RequestParam int pageSize,
+            @RequestParam(required = false) TotalCountMode total,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return this.productService.findAllAsync(pageNumber, pageSize, includeArchived, total);
+    }
+
+    @GetMapping("count")
+    public long count(@RequestParam(defaultValue = "CACHED") TotalCountMode mode) {
+        return this.productCountService.count(mode);
+    }
+
+    @GetMapping("stats")
+    public ProductStats stats() {
+        return this.productStatsService.stats();
+    }
+
+    @GetMapping("search")
+    public List<Product> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        return this.productSearchService.search(q, limit);
+    }
+
+    @PostMapping("search/rebuild")
+    public int rebuildSearchIndex() {
+        return this.productSearchService.rebuild();
+    }
+
+    @PostMapping("scan")
+    public String startScan() {
+        return this.productService.startScan();
+    }
+
+    @GetMapping("scan")
+    @Deadline("${lab5.deadline.products.scan-ms}")
+    public ProductScanPage scan(
+            @RequestParam int shard,
+            @RequestParam int shards,
+            @RequestParam(required = false) String token,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "500") int limit) {
+        return this.productService.scan(shard, shards, token, cursor, limit);
     }
 
     @GetMapping("{id}")
@@ -42,6 +115,11 @@ public class ProductsController {
         return this.productService.update(product);
     }
 
+    @PatchMapping(value = "{id}", consumes = {"application/merge-patch+json", "application/json"})
+    public Product patch(@PathVariable long id, @RequestBody Map<String, Object> patch) {
+        return this.productPatchService.patch(id, patch);
+    }
+
     @DeleteMapping("{id}")
     public void delete(@PathVariable long id) {
         this.productService.delete(id);
@@ -0,0 +1,20 @@
+package org.example.lab5.deadline;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Time budget of a handler method in milliseconds, overriding
+ * {@code lab5.deadline.default-ms}. Property placeholders are resolved, so
+ * budgets can be tuned per environment.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Deadline {
+
+    String value();
+}
@@ -0,0 +1,64 @@
+package org.example.lab5.deadline;
+
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA transaction manager that caps every transaction started for a request
+ * at the time left before its {@link RequestDeadline}. Hibernate applies the
+ * remaining transaction time as the JDBC query timeout of each statement, so
+ * a slow query is aborted by the driver instead of outliving the request.
+ * The session is also registered with the deadline so that a client
+ * disconnect cancels the statement it is running.
+ */
+public class DeadlineAwareTransactionManager extends JpaTransactionManager {
+
+    @Override
+    protected int determineTimeout(TransactionDefinition definition) {
+        int timeout = super.determineTimeout(definition);
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline == null) {
+            return timeout;
+        }
+        if (deadline.isCancelled()) {
+            throw new TransactionTimedOutException("Request to " + deadline.endpoint() + " was cancelled");
+        }
+        if (deadline.isExpired()) {
+            throw new TransactionTimedOutException(
+                    "Deadline of " + deadline.budgetMillis() + " ms for " + deadline.endpoint() + " exceeded");
+        }
+        // JDBC timeouts have second granularity; round up so short budgets still get a timeout.
+        int remainingSeconds = (int) Math.min(Integer.MAX_VALUE, (deadline.remainingMillis() + 999) / 1000);
+        return timeout == TransactionDefinition.TIMEOUT_DEFAULT ? remainingSeconds : Math.min(timeout, remainingSeconds);
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        super.doBegin(transaction, definition);
+        RequestDeadline deadline = RequestDeadline.current();
+        Session session = this.currentSession();
+        if (deadline != null && session != null) {
+            deadline.register(session, session::cancelQuery);
+        }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        RequestDeadline deadline = RequestDeadline.current();
+        Session session = this.currentSession();
+        if (deadline != null && session != null) {
+            deadline.unregister(session);
+        }
+        super.doCleanupAfterCompletion(transaction);
+    }
+
+    private Session currentSession() {
+        EntityManagerHolder holder =
+                (EntityManagerHolder) TransactionSynchronizationManager.getResource(this.obtainEntityManagerFactory());
+        return holder != null ? holder.getEntityManager().unwrap(Session.class) : null;
+    }
+}
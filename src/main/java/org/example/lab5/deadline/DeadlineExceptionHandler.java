@@ -0,0 +1,45 @@
+package org.example.lab5.deadline;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Answers requests whose queries were aborted by their deadline with
+ * {@code 504 Gateway Timeout} and counts them. Requests cancelled because
+ * the client went away are already counted as cancelled. Requests shed because
+ * the bounded task executor is saturated get {@code 503 Service Unavailable}
+ * right away instead of queueing past their deadline.
+ */
+@RestControllerAdvice
+public class DeadlineExceptionHandler {
+
+    private final DeadlineMetrics metrics;
+
+    public DeadlineExceptionHandler(DeadlineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @ExceptionHandler({QueryTimeoutException.class, TransactionTimedOutException.class})
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    public ProblemDetail deadlineExceeded(RuntimeException ex, HttpServletRequest request) {
+        RequestDeadline deadline = (RequestDeadline) request.getAttribute(DeadlineInterceptor.ATTRIBUTE);
+        if (deadline != null && !deadline.isCancelled()) {
+            this.metrics.exceeded(deadline);
+        }
+        return ProblemDetail.forStatusAndDetail(HttpStatus.GATEWAY_TIMEOUT, ex.getMessage());
+    }
+
+    @ExceptionHandler(TaskRejectedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ProblemDetail taskRejected(TaskRejectedException ex) {
+        this.metrics.rejected();
+        return ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent requests");
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.lab5.deadline;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Starts the deadline of each handled request and binds it to the handling
+ * thread. The budget is the endpoint's {@link Deadline} or
+ * {@code lab5.deadline.default-ms}; a client may shorten it, but not extend
+ * it, with the {@value #TIMEOUT_HEADER} header.
+ * <p>
+ * For asynchronous handlers the interceptor also listens for container
+ * errors and async timeouts: when the client disconnects, the queries still
+ * running for it are cancelled instead of holding pool connections until
+ * they finish.
+ */
+@Component
+public class DeadlineInterceptor
+        implements AsyncHandlerInterceptor, DeferredResultProcessingInterceptor, CallableProcessingInterceptor {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    static final String ATTRIBUTE = RequestDeadline.class.getName();
+
+    private final Environment environment;
+
+    private final DeadlineMetrics metrics;
+
+    private final long defaultMillis;
+
+    public DeadlineInterceptor(
+            Environment environment,
+            DeadlineMetrics metrics,
+            @Value("${lab5.deadline.default-ms:10000}") long defaultMillis) {
+        this.environment = environment;
+        this.metrics = metrics;
+        this.defaultMillis = defaultMillis;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        // Async dispatches come back through here and keep the original deadline.
+        RequestDeadline deadline = (RequestDeadline) request.getAttribute(ATTRIBUTE);
+        if (deadline == null) {
+            deadline = new RequestDeadline(endpoint(request), this.budgetMillis(request, handlerMethod));
+            request.setAttribute(ATTRIBUTE, deadline);
+        }
+        RequestDeadline.bind(deadline);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestDeadline.restore(null);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestDeadline.restore(null);
+    }
+
+    @Override
+    public <T> boolean handleTimeout(NativeWebRequest request, DeferredResult<T> deferredResult) {
+        this.expire(request);
+        return true;
+    }
+
+    @Override
+    public <T> boolean handleError(NativeWebRequest request, DeferredResult<T> deferredResult, Throwable t) {
+        this.disconnect(request);
+        return true;
+    }
+
+    @Override
+    public <T> Object handleTimeout(NativeWebRequest request, Callable<T> task) {
+        this.expire(request);
+        return RESULT_NONE;
+    }
+
+    @Override
+    public <T> Object handleError(NativeWebRequest request, Callable<T> task, Throwable t) {
+        this.disconnect(request);
+        return RESULT_NONE;
+    }
+
+    long budgetMillis(HttpServletRequest request, HandlerMethod handlerMethod) {
+        long budget = this.defaultMillis;
+        Deadline annotation = handlerMethod.getMethodAnnotation(Deadline.class);
+        if (annotation != null) {
+            budget = Long.parseLong(this.environment.resolveRequiredPlaceholders(annotation.value()));
+        }
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header != null) {
+            long requested;
+            try {
+                requested = Long.parseLong(header.trim());
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, TIMEOUT_HEADER + " must be a number of milliseconds");
+            }
+            if (requested < 1) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, TIMEOUT_HEADER + " must be positive");
+            }
+            budget = Math.min(budget, requested);
+        }
+        return budget;
+    }
+
+    private void expire(NativeWebRequest request) {
+        RequestDeadline deadline = deadline(request);
+        if (deadline != null) {
+            this.metrics.exceeded(deadline);
+            deadline.cancel();
+        }
+    }
+
+    private void disconnect(NativeWebRequest request) {
+        RequestDeadline deadline = deadline(request);
+        if (deadline != null && deadline.cancel()) {
+            this.metrics.cancelled(deadline);
+        }
+    }
+
+    private static RequestDeadline deadline(NativeWebRequest request) {
+        return (RequestDeadline) request.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+}
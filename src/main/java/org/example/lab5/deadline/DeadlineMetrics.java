@@ -0,0 +1,44 @@
+package org.example.lab5.deadline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counters for requests that ran out of time or were abandoned by the
+ * client, tagged with the endpoint pattern, and for requests rejected by the
+ * saturated task executor.
+ */
+@Component
+public class DeadlineMetrics {
+
+    static final String EXCEEDED = "lab5.requests.deadline.exceeded";
+
+    static final String CANCELLED = "lab5.requests.deadline.cancelled";
+
+    static final String REJECTED = "lab5.requests.rejected";
+
+    private final MeterRegistry registry;
+
+    public DeadlineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void exceeded(RequestDeadline deadline) {
+        if (deadline.markExceeded()) {
+            this.counter(EXCEEDED, deadline).increment();
+        }
+    }
+
+    public void cancelled(RequestDeadline deadline) {
+        this.counter(CANCELLED, deadline).increment();
+    }
+
+    public void rejected() {
+        this.registry.counter(REJECTED).increment();
+    }
+
+    private Counter counter(String name, RequestDeadline deadline) {
+        return Counter.builder(name).tag("endpoint", deadline.endpoint()).register(this.registry);
+    }
+}
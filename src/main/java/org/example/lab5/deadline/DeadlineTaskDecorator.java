@@ -0,0 +1,27 @@
+package org.example.lab5.deadline;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Carries the submitting thread's {@link RequestDeadline} into tasks run on
+ * the application task executor, so {@code @Async} work keeps the request's
+ * query timeouts and can still be cancelled.
+ */
+public class DeadlineTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline == null) {
+            return runnable;
+        }
+        return () -> {
+            RequestDeadline previous = RequestDeadline.bind(deadline);
+            try {
+                runnable.run();
+            } finally {
+                RequestDeadline.restore(previous);
+            }
+        };
+    }
+}
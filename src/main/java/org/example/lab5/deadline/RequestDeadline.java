@@ -0,0 +1,125 @@
+package org.example.lab5.deadline;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Deadline of the request being handled, bound to the handling thread and to
+ * any task it hands off. Work that can be aborted from another thread, such
+ * as a running JDBC statement, registers a canceller that runs when the
+ * client goes away.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+    private final String endpoint;
+
+    private final long budgetMillis;
+
+    private final long expiresAtNanos;
+
+    private final Map<Object, Runnable> cancellers = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    private final AtomicBoolean exceeded = new AtomicBoolean();
+
+    public RequestDeadline(String endpoint, long budgetMillis) {
+        this.endpoint = endpoint;
+        this.budgetMillis = budgetMillis;
+        this.expiresAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    }
+
+    public static RequestDeadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds {@code deadline} to the calling thread.
+     *
+     * @return the previously bound deadline, to be passed to {@link #restore}
+     */
+    public static RequestDeadline bind(RequestDeadline deadline) {
+        RequestDeadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        return previous;
+    }
+
+    public static void restore(RequestDeadline previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public String endpoint() {
+        return this.endpoint;
+    }
+
+    public long budgetMillis() {
+        return this.budgetMillis;
+    }
+
+    public long remainingMillis() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(this.expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return this.expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    public boolean isCancelled() {
+        return this.cancelled.get();
+    }
+
+    /**
+     * Registers work that {@link #cancel()} should abort; a canceller added
+     * after cancellation runs immediately.
+     */
+    public void register(Object key, Runnable canceller) {
+        this.cancellers.put(key, canceller);
+        if (this.isCancelled() && this.cancellers.remove(key) != null) {
+            canceller.run();
+        }
+    }
+
+    public void unregister(Object key) {
+        this.cancellers.remove(key);
+    }
+
+    /**
+     * Aborts all registered work. Cancellers are best effort; a failure to
+     * cancel one does not prevent the others from running.
+     *
+     * @return true on the first call only
+     */
+    public boolean cancel() {
+        if (!this.cancelled.compareAndSet(false, true)) {
+            return false;
+        }
+        for (Object key : this.cancellers.keySet()) {
+            Runnable canceller = this.cancellers.remove(key);
+            if (canceller != null) {
+                try {
+                    canceller.run();
+                } catch (RuntimeException ignored) {
+                    // The work finished or failed on its own in the meantime.
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Flags the request as having run out of time.
+     *
+     * @return true on the first call only, so each request is counted once
+     */
+    boolean markExceeded() {
+        return this.exceeded.compareAndSet(false, true);
+    }
+}
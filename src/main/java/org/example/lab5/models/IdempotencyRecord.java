@@ -0,0 +1,28 @@
+package org.example.lab5.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Outcome of a request executed under an {@code Idempotency-Key}. A record
+ * without a response marks a request that is still being executed.
+ */
+@Data
+@Entity
+@Table(name = "idempotency_records")
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private String fingerprint;
+
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
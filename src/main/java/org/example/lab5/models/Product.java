@@ -1,11 +1,22 @@
 package org.example.lab5.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.annotations.TenantId;
+
+import java.time.Instant;
 
 @Data
 @Entity
 @Table(name = "products")
+@SQLRestriction("deleted = false")
+@DynamicUpdate
+@JsonSerialize(using = ProductSerializer.class)
 public class Product {
 
     @Id
@@ -17,4 +28,39 @@ public class Product {
     private Long price;
 
     private Long quantity;
+
+    /**
+     * Set by clients when the product is no longer sold; discontinued products
+     * are moved to the archive partition by the nightly archive job, and
+     * clearing the flag moves them back.
+     */
+    private boolean discontinued;
+
+    /**
+     * Owning tenant; filled in from the current tenant on insert and added by
+     * Hibernate to every query.
+     */
+    @TenantId
+    @JsonIgnore
+    @Column(name = "tenant_id", nullable = false, updatable = false)
+    private String tenantId;
+
+    @JsonIgnore
+    @Column(nullable = false)
+    private boolean deleted;
+
+    @JsonIgnore
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+
+    /**
+     * Partition key: archived products live in the {@code products_archive} partition.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable = false)
+    private boolean archived;
+
+    @JsonIgnore
+    @Column(name = "archived_at")
+    private Instant archivedAt;
 }
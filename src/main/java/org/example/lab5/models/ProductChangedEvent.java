@@ -0,0 +1,45 @@
+package org.example.lab5.models;
+
+/**
+ * Published by the product service after every successful mutation so that
+ * derived state (cached counts, indexes, aggregates) can be kept in sync
+ * without re-reading the products table.
+ *
+ * @param type        kind of mutation
+ * @param productId   id of the affected product
+ * @param product     state after the mutation, {@code null} for deletions and archival
+ * @param previous    state before the mutation when the publisher read it,
+ *                    {@code null} for creations or when it is unknown
+ * @param fromArchive whether the product was in the archive partition before
+ *                    the mutation; tells deletions of archived products, which
+ *                    do not change the hot partition, apart from hot ones
+ */
+public record ProductChangedEvent(Type type, long productId, Product product, Product previous, boolean fromArchive) {
+
+    public ProductChangedEvent(Type type, long productId, Product product) {
+        this(type, productId, product, null, false);
+    }
+
+    public ProductChangedEvent(Type type, long productId, Product product, Product previous) {
+        this(type, productId, product, previous, previous != null && previous.isArchived());
+    }
+
+    /**
+     * Whether the product is no longer live after this event: it was deleted
+     * or archived, or an update touched a product that is already archived.
+     * Views over live products (search index, snapshot) drop it in that case.
+     */
+    public boolean leavesLiveProducts() {
+        return this.type == Type.DELETED || this.product == null || this.product.isArchived();
+    }
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        /** Moved to the archive partition; no longer visible to default reads. */
+        ARCHIVED,
+        /** Moved back from the archive partition after being un-discontinued. */
+        RESTORED
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.lab5.models;
+
+/**
+ * Projection of the smallest and largest id in the hot partition; both are
+ * null when it is empty.
+ */
+public interface ProductIdRange {
+
+    Long getMinId();
+
+    Long getMaxId();
+}
@@ -0,0 +1,11 @@
+package org.example.lab5.models;
+
+import java.util.List;
+
+/**
+ * One batch of a sharded catalog scan. {@code nextCursor} is passed back to
+ * fetch the following batch of the same shard and is null once the shard is
+ * exhausted.
+ */
+public record ProductScanPage(int shard, int shards, List<Product> products, String nextCursor) {
+}
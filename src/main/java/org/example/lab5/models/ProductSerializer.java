@@ -0,0 +1,46 @@
+package org.example.lab5.models;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link Product} field by field instead of going through Jackson's
+ * reflective bean serializer, so large pages do not pay for per-property
+ * writers and accessor calls.
+ * <p>
+ * The output matches what the bean serializer produces for the public fields
+ * ({@code id}, {@code name}, {@code price}, {@code quantity},
+ * {@code discontinued}, {@code archived}, nulls included); fields marked
+ * {@code @JsonIgnore} are never written. Fields added to {@link Product} must
+ * be added here as well.
+ */
+public class ProductSerializer extends StdSerializer<Product> {
+
+    public ProductSerializer() {
+        super(Product.class);
+    }
+
+    @Override
+    public void serialize(Product product, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(product);
+        writeNumber(generator, "id", product.getId());
+        generator.writeStringField("name", product.getName());
+        writeNumber(generator, "price", product.getPrice());
+        writeNumber(generator, "quantity", product.getQuantity());
+        generator.writeBooleanField("discontinued", product.isDiscontinued());
+        generator.writeBooleanField("archived", product.isArchived());
+        generator.writeEndObject();
+    }
+
+    private static void writeNumber(JsonGenerator generator, String field, Long value) throws IOException {
+        generator.writeFieldName(field);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+}
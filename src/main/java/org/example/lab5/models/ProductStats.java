@@ -0,0 +1,25 @@
+package org.example.lab5.models;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Inventory report served by {@code GET /api/products/stats}.
+ *
+ * @param productCount      number of products
+ * @param totalQuantity     sum of quantities in stock
+ * @param totalValue        sum of {@code price * quantity}
+ * @param lowStockThreshold products with a quantity below this value are low on stock
+ * @param lowStockCount     number of products low on stock
+ * @param lowStock          products lowest on stock, capped at the configured limit
+ * @param computedAt        when the aggregates were last updated
+ */
+public record ProductStats(
+        long productCount,
+        long totalQuantity,
+        long totalValue,
+        long lowStockThreshold,
+        long lowStockCount,
+        List<Product> lowStock,
+        Instant computedAt) {
+}
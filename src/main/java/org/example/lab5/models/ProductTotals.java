@@ -0,0 +1,16 @@
+package org.example.lab5.models;
+
+/**
+ * Projection of the inventory aggregates computed in a single pass over the
+ * products table.
+ */
+public interface ProductTotals {
+
+    Long getProductCount();
+
+    Long getTotalQuantity();
+
+    Long getTotalValue();
+
+    Long getLowStockCount();
+}
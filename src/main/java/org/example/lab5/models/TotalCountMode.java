@@ -0,0 +1,13 @@
+package org.example.lab5.models;
+
+/**
+ * How the total number of products should be obtained for paged listings.
+ */
+public enum TotalCountMode {
+    /** Runs {@code count(*)} against the products table. */
+    EXACT,
+    /** Uses the cached count maintained on create/delete and refreshed in the background. */
+    CACHED,
+    /** Uses the planner's row estimate for the products table. */
+    APPROXIMATE
+}
@@ -0,0 +1,45 @@
+package org.example.lab5.repositories;
+
+import org.example.lab5.models.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Inserts a pending record for the key, or takes over an existing record
+     * that has expired ({@code created_at < expiredBefore}) or is still pending
+     * after its lease ({@code created_at < pendingBefore}), e.g. because its
+     * owner crashed.
+     *
+     * @return 1 when the caller now owns the key, 0 when another request does
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into idempotency_records (idempotency_key, fingerprint, created_at) "
+            + "values (:key, :fingerprint, :createdAt) "
+            + "on conflict (idempotency_key) do update "
+            + "set fingerprint = excluded.fingerprint, response = null, created_at = excluded.created_at "
+            + "where idempotency_records.created_at < :expiredBefore "
+            + "or (idempotency_records.response is null and idempotency_records.created_at < :pendingBefore)",
+            nativeQuery = true)
+    int claim(@Param("key") String key, @Param("fingerprint") String fingerprint, @Param("createdAt") Instant createdAt,
+              @Param("expiredBefore") Instant expiredBefore, @Param("pendingBefore") Instant pendingBefore);
+
+    /**
+     * Deletes up to {@code batchSize} records created before {@code cutoff}.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "delete from idempotency_records where idempotency_key in ("
+            + "select idempotency_key from idempotency_records where created_at < :cutoff limit :batchSize)",
+            nativeQuery = true)
+    int deleteExpired(@Param("cutoff") Instant cutoff, @Param("batchSize") int batchSize);
+}
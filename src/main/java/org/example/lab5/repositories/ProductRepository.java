@@ -1,9 +1,128 @@
 package org.example.lab5.repositories;
 
 import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductIdRange;
+import org.example.lab5.models.ProductTotals;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    /**
+     * Pages through products without issuing the {@code count(*)} query that
+     * {@link #findAll(Pageable)} runs to build a {@link org.springframework.data.domain.Page}.
+     */
+    Slice<Product> findAllBy(Pageable pageable);
+
+    /**
+     * Same as {@link #findAllBy(Pageable)}, restricted to the hot partition.
+     */
+    Slice<Product> findAllByArchivedFalse(Pageable pageable);
+
+    /**
+     * Keyset pagination over the primary key of the hot partition, used for
+     * full-table walks that must not degrade with the offset.
+     */
+    List<Product> findByArchivedFalseAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Keyset pagination restricted to the id range {@code (id, upperBound)},
+     * used to walk one shard of a parallel scan.
+     */
+    List<Product> findByArchivedFalseAndIdGreaterThanAndIdLessThanOrderByIdAsc(Long id, Long upperBound, Limit limit);
+
+    @Query("select min(p.id) as minId, max(p.id) as maxId from Product p where p.archived = false")
+    ProductIdRange findIdRange();
+
+    long countByArchivedFalse();
+
+    /**
+     * Row estimate of the hot partition kept by the Postgres planner; -1 when
+     * it has never been analyzed.
+     */
+    @Query(value = "select cast(reltuples as bigint) from pg_class where relname = 'products_hot'", nativeQuery = true)
+    Long estimateCount();
+
+    @Query("select count(p) as productCount, "
+            + "coalesce(sum(p.quantity), 0L) as totalQuantity, "
+            + "coalesce(sum(p.price * p.quantity), 0L) as totalValue, "
+            + "coalesce(sum(case when p.quantity < :threshold then 1L else 0L end), 0L) as lowStockCount "
+            + "from Product p where p.archived = false")
+    ProductTotals aggregateTotals(@Param("threshold") Long threshold);
+
+    List<Product> findByArchivedFalseAndQuantityLessThanOrderByQuantityAsc(Long quantity, Limit limit);
+
+    /**
+     * Marks a product in the hot partition as deleted with a single UPDATE,
+     * without loading it first.
+     *
+     * @return number of rows flagged, 0 when the product does not exist, is
+     * already deleted or is archived
+     */
+    @Transactional
+    @Modifying
+    @Query("update Product p set p.deleted = true, p.deletedAt = :deletedAt "
+            + "where p.id = :id and p.deleted = false and p.archived = false")
+    int softDeleteById(@Param("id") Long id, @Param("deletedAt") Instant deletedAt);
+
+    /**
+     * Same as {@link #softDeleteById(Long, Instant)} for a product in the
+     * archive partition.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Product p set p.deleted = true, p.deletedAt = :deletedAt "
+            + "where p.id = :id and p.deleted = false and p.archived = true")
+    int softDeleteArchivedById(@Param("id") Long id, @Param("deletedAt") Instant deletedAt);
+
+    /**
+     * Physically removes up to {@code batchSize} products that were soft deleted before {@code cutoff}.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "delete from products where id in ("
+            + "select id from products where deleted = true and deleted_at < :cutoff order by id limit :batchSize)",
+            nativeQuery = true)
+    int purgeDeleted(@Param("cutoff") Instant cutoff, @Param("batchSize") int batchSize);
+
+    /**
+     * Ids of the tenant's discontinued live products in the hot partition, in
+     * id order. Native queries are not tenant filtered, hence the explicit
+     * tenant.
+     */
+    @Query(value = "select id from products where tenant_id = :tenantId and archived = false and deleted = false "
+            + "and discontinued = true order by id limit :batchSize", nativeQuery = true)
+    List<Long> findArchivableIds(@Param("tenantId") String tenantId, @Param("batchSize") int batchSize);
+
+    /**
+     * Moves the given products to the archive partition.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Product p set p.archived = true, p.archivedAt = :archivedAt "
+            + "where p.id in :ids and p.archived = false")
+    int archiveByIds(@Param("ids") List<Long> ids, @Param("archivedAt") Instant archivedAt);
+
+    /**
+     * Moves an archived product that is no longer discontinued back to the
+     * hot partition.
+     *
+     * @return 1 when the product was restored, 0 otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query("update Product p set p.archived = false, p.archivedAt = null "
+            + "where p.id = :id and p.archived = true and p.discontinued = false")
+    int restoreById(@Param("id") long id);
 }
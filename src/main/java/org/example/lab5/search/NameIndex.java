@@ -0,0 +1,146 @@
+package org.example.lab5.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index from name tokens to ids. Tokens are kept in a sorted map so
+ * the last query term can be matched as a prefix (typeahead), while the
+ * remaining terms must match whole tokens.
+ * <p>
+ * Lookups may run concurrently with each other and with one writer; callers
+ * must serialize writes.
+ */
+public final class NameIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ConcurrentSkipListMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentHashMap<Long, String[]> tokensById = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes {@code id} under the tokens of {@code name}, replacing the
+     * tokens it was indexed under before.
+     */
+    public void put(long id, String name) {
+        this.remove(id);
+        String[] tokens = tokenize(name);
+        if (tokens.length == 0) {
+            return;
+        }
+        for (String token : tokens) {
+            this.postings.computeIfAbsent(token, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        this.tokensById.put(id, tokens);
+    }
+
+    public void remove(long id) {
+        String[] tokens = this.tokensById.remove(id);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Set<Long> posting = this.postings.get(token);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    this.postings.remove(token, posting);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return this.tokensById.size();
+    }
+
+    /**
+     * Returns up to {@code limit} ids whose names contain every term of
+     * {@code query}, the last one as a prefix. Single-term results are ordered
+     * by matching token, so shorter completions come first.
+     */
+    public List<Long> search(String query, int limit) {
+        String[] terms = tokenize(query);
+        if (terms.length == 0) {
+            return List.of();
+        }
+        return terms.length == 1
+                ? this.searchPrefix(terms[0], limit)
+                : this.searchTerms(terms, limit);
+    }
+
+    private List<Long> searchPrefix(String prefix, int limit) {
+        List<Long> ids = new ArrayList<>(Math.min(limit, 64));
+        Set<Long> seen = new HashSet<>();
+        for (Set<Long> posting : this.postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            for (Long id : posting) {
+                if (seen.add(id)) {
+                    ids.add(id);
+                    if (ids.size() == limit) {
+                        return ids;
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private List<Long> searchTerms(String[] terms, int limit) {
+        Set<Long> smallest = null;
+        for (int i = 0; i < terms.length - 1; i++) {
+            Set<Long> posting = this.postings.get(terms[i]);
+            if (posting == null) {
+                return List.of();
+            }
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(Math.min(limit, 64));
+        for (Long id : smallest) {
+            String[] tokens = this.tokensById.get(id);
+            if (tokens != null && matchesAll(tokens, terms)) {
+                ids.add(id);
+                if (ids.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static boolean matchesAll(String[] tokens, String[] terms) {
+        List<String> tokenList = Arrays.asList(tokens);
+        for (int i = 0; i < terms.length - 1; i++) {
+            if (!tokenList.contains(terms[i])) {
+                return false;
+            }
+        }
+        String prefix = terms[terms.length - 1];
+        for (String token : tokens) {
+            if (token.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+        return TOKEN_SEPARATOR.splitAsStream(text.toLowerCase(Locale.ROOT))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+}
@@ -0,0 +1,311 @@
+package org.example.lab5.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.lab5.models.IdempotencyRecord;
+import org.example.lab5.repositories.IdempotencyRecordRepository;
+import org.example.lab5.tenancy.TenantContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Executes write requests at most once per {@code Idempotency-Key}. The
+ * outcome is remembered for a bounded time either in a size-capped in-memory
+ * store or in the {@code idempotency_records} table, so client retries get the
+ * original result instead of re-running the write. A duplicate that arrives
+ * while the original is still running waits for it rather than executing.
+ * Keys are scoped to the current tenant; scoped keys that would not fit the
+ * key column are stored as a hash. Requests are fingerprinted by their JSON
+ * form, and expired database records are deleted in small batches.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final String DATABASE_STORE = "database";
+
+    private static final long POLL_INTERVAL_MS = 50;
+
+    /** Length of {@code idempotency_records.idempotency_key}. */
+    private static final int MAX_KEY_LENGTH = 255;
+
+    /** Marks stored keys that are a hash of the scoped key. */
+    private static final String HASHED_KEY_PREFIX = "#";
+
+    private final IdempotencyRecordRepository recordRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean persistent;
+
+    private final Duration ttl;
+
+    private final int maxEntries;
+
+    private final Duration waitTimeout;
+
+    private final Duration pendingLease;
+
+    private final int evictionBatchSize;
+
+    private final Map<String, IdempotencyRecord> records = new LinkedHashMap<>();
+
+    private final ConcurrentHashMap<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IdempotencyService(
+            IdempotencyRecordRepository recordRepository,
+            ObjectMapper objectMapper,
+            @Value("${lab5.idempotency.store:memory}") String store,
+            @Value("${lab5.idempotency.ttl-ms:86400000}") long ttlMillis,
+            @Value("${lab5.idempotency.max-entries:10000}") int maxEntries,
+            @Value("${lab5.idempotency.wait-timeout-ms:10000}") long waitTimeoutMillis,
+            @Value("${lab5.idempotency.pending-lease-ms:30000}") long pendingLeaseMillis,
+            @Value("${lab5.idempotency.eviction-batch-size:1000}") int evictionBatchSize) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.persistent = DATABASE_STORE.equalsIgnoreCase(store);
+        this.ttl = Duration.ofMillis(ttlMillis);
+        this.maxEntries = maxEntries;
+        this.waitTimeout = Duration.ofMillis(waitTimeoutMillis);
+        this.pendingLease = Duration.ofMillis(pendingLeaseMillis);
+        this.evictionBatchSize = evictionBatchSize;
+    }
+
+    /**
+     * Runs {@code action} unless a request with the same key has already been
+     * executed, in which case its result is returned.
+     *
+     * @param key     client supplied idempotency key; {@code null} disables deduplication
+     * @param request request payload, used to detect a key reused for a different request
+     * @param action  the write to perform, returning the id of the affected resource
+     */
+    public Long execute(String key, Object request, Supplier<Long> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        key = scoped(key);
+        String fingerprint = this.fingerprint(request);
+        while (true) {
+            IdempotencyRecord completed = this.find(key);
+            if (completed != null && completed.getResponse() != null) {
+                return replay(completed, fingerprint);
+            }
+
+            CompletableFuture<IdempotencyRecord> own = new CompletableFuture<>();
+            CompletableFuture<IdempotencyRecord> running = this.inFlight.putIfAbsent(key, own);
+            if (running != null) {
+                IdempotencyRecord record = this.await(running);
+                if (record != null) {
+                    return replay(record, fingerprint);
+                }
+                continue;
+            }
+
+            try {
+                IdempotencyRecord record = this.executeAsOwner(key, fingerprint, action);
+                own.complete(record);
+                if (record != null) {
+                    return replay(record, fingerprint);
+                }
+            } catch (RuntimeException e) {
+                own.complete(null);
+                throw e;
+            } finally {
+                this.inFlight.remove(key, own);
+            }
+        }
+    }
+
+    /**
+     * Drops expired records. Database records are deleted in batches of
+     * {@code lab5.idempotency.eviction-batch-size}, each in its own short
+     * transaction, so a backlog of expired keys never locks the table for long.
+     */
+    @Scheduled(fixedDelayString = "${lab5.idempotency.eviction-interval-ms:60000}")
+    public void evictExpired() {
+        Instant cutoff = Instant.now().minus(this.ttl);
+        if (this.persistent) {
+            int deleted;
+            do {
+                deleted = this.recordRepository.deleteExpired(cutoff, this.evictionBatchSize);
+            } while (deleted == this.evictionBatchSize);
+            return;
+        }
+        synchronized (this.records) {
+            Iterator<IdempotencyRecord> iterator = this.records.values().iterator();
+            while (iterator.hasNext() && iterator.next().getCreatedAt().isBefore(cutoff)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static String scoped(String key) {
+        String scoped = TenantContext.isDefault() ? key : TenantContext.current() + ":" + key;
+        if (scoped.length() > MAX_KEY_LENGTH || scoped.startsWith(HASHED_KEY_PREFIX)) {
+            return HASHED_KEY_PREFIX + sha256(scoped.getBytes(StandardCharsets.UTF_8));
+        }
+        return scoped;
+    }
+
+    /**
+     * @return the stored record, or {@code null} when another instance owned
+     * the key but gave up without storing a result
+     */
+    private IdempotencyRecord executeAsOwner(String key, String fingerprint, Supplier<Long> action) {
+        IdempotencyRecord completed = this.find(key);
+        if (completed != null && completed.getResponse() != null) {
+            return completed;
+        }
+        if (this.persistent && !this.claim(key, fingerprint)) {
+            return this.awaitPersisted(key);
+        }
+
+        Long result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            if (this.persistent) {
+                this.recordRepository.deleteById(key);
+            }
+            throw e;
+        }
+
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(key);
+        record.setFingerprint(fingerprint);
+        record.setResponse(String.valueOf(result));
+        record.setCreatedAt(Instant.now());
+        this.store(record);
+        return record;
+    }
+
+    /**
+     * Claims the key in the database. Expired records and pending records
+     * whose owner has not finished within the lease are taken over, so
+     * neither a record awaiting eviction nor a crashed owner blocks the key.
+     */
+    private boolean claim(String key, String fingerprint) {
+        Instant now = Instant.now();
+        return this.recordRepository.claim(key, fingerprint, now, now.minus(this.ttl), now.minus(this.pendingLease)) > 0;
+    }
+
+    private IdempotencyRecord find(String key) {
+        Instant cutoff = Instant.now().minus(this.ttl);
+        if (this.persistent) {
+            return this.recordRepository.findById(key)
+                    .filter(record -> !record.getCreatedAt().isBefore(cutoff))
+                    .orElse(null);
+        }
+        synchronized (this.records) {
+            IdempotencyRecord record = this.records.get(key);
+            if (record != null && record.getCreatedAt().isBefore(cutoff)) {
+                this.records.remove(key);
+                return null;
+            }
+            return record;
+        }
+    }
+
+    private void store(IdempotencyRecord record) {
+        if (this.persistent) {
+            this.recordRepository.save(record);
+            return;
+        }
+        synchronized (this.records) {
+            this.records.put(record.getIdempotencyKey(), record);
+            Iterator<String> eldest = this.records.keySet().iterator();
+            while (this.records.size() > this.maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    private IdempotencyRecord await(CompletableFuture<IdempotencyRecord> running) {
+        try {
+            return running.get(this.waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw stillInProgress();
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw stillInProgress();
+        }
+    }
+
+    /**
+     * Waits for the owner of a pending record to store its result.
+     *
+     * @return the completed record, or {@code null} when the record is gone or
+     * its lease has run out and the key may be claimed again
+     */
+    private IdempotencyRecord awaitPersisted(String key) {
+        long deadline = System.nanoTime() + this.waitTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            IdempotencyRecord record = this.find(key);
+            if (record == null || record.getResponse() != null) {
+                return record;
+            }
+            if (record.getCreatedAt().isBefore(Instant.now().minus(this.pendingLease))) {
+                return null;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw stillInProgress();
+    }
+
+    private static Long replay(IdempotencyRecord record, String fingerprint) {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different request");
+        }
+        return Long.valueOf(record.getResponse());
+    }
+
+    private static ResponseStatusException stillInProgress() {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "A request with this Idempotency-Key is still being processed");
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            return sha256(this.objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request cannot be fingerprinted", e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.lab5.services;
+
+import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductChangedEvent;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.tenancy.TenantContext;
+import org.example.lab5.tenancy.TenantRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves discontinued products from the hot partition to the archive
+ * partition. Running out of stock does not archive a product; only the
+ * explicit {@code discontinued} flag does.
+ * Works in small batches, each in its own transaction, and publishes an
+ * {@link ProductChangedEvent.Type#ARCHIVED} event per product, carrying the
+ * product as it was in the hot partition, so in-memory indexes and aggregates
+ * drop them as well. Tenants are archived one after another, each
+ * with its tenant bound so the events reach the right cache partitions.
+ */
+@Service
+public class ProductArchiveService {
+
+    private final ProductRepository productRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TenantRegistry tenantRegistry;
+
+    private final int batchSize;
+
+    private final int maxBatchesPerRun;
+
+    @Autowired
+    public ProductArchiveService(
+            ProductRepository productRepository,
+            ApplicationEventPublisher eventPublisher,
+            TenantRegistry tenantRegistry,
+            @Value("${lab5.products.archive.batch-size:1000}") int batchSize,
+            @Value("${lab5.products.archive.max-batches-per-run:100}") int maxBatchesPerRun) {
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.tenantRegistry = tenantRegistry;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    /**
+     * @return number of archived products
+     */
+    @Scheduled(cron = "${lab5.products.archive.cron:0 30 2 * * *}")
+    public int archive() {
+        int archived = 0;
+        for (String tenant : this.tenantRegistry.tenants()) {
+            archived += TenantContext.call(tenant, this::archiveCurrentTenant);
+        }
+        return archived;
+    }
+
+    private int archiveCurrentTenant() {
+        String tenant = TenantContext.current();
+        int archived = 0;
+        for (int batch = 0; batch < this.maxBatchesPerRun; batch++) {
+            List<Long> ids = this.productRepository.findArchivableIds(tenant, this.batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            Map<Long, Product> previous = new HashMap<>();
+            for (Product product : this.productRepository.findAllById(ids)) {
+                previous.put(product.getId(), product);
+            }
+            archived += this.productRepository.archiveByIds(ids, Instant.now());
+            for (Long id : ids) {
+                this.eventPublisher.publishEvent(
+                        new ProductChangedEvent(ProductChangedEvent.Type.ARCHIVED, id, null, previous.get(id)));
+            }
+            if (ids.size() < this.batchSize) {
+                break;
+            }
+        }
+        return archived;
+    }
+}
@@ -0,0 +1,192 @@
+package org.example.lab5.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.example.lab5.cache.CacheCodec;
+import org.example.lab5.cache.RemoteCache;
+import org.example.lab5.cache.TwoLevelCache;
+import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductChangedEvent;
+import org.example.lab5.tenancy.TenantContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Caches {@link ProductService#findById} results in a {@link TwoLevelCache}
+ * shared by all instances of the service. Each tenant gets its own near-cache
+ * with its own {@code local-max-entries} budget and meters tagged with the
+ * tenant, so one tenant's working set cannot evict another's. Keys in the
+ * shared tier are scoped to the tenant, and entries are invalidated everywhere
+ * once an update, delete or archival has been committed. Products that do not
+ * exist are not cached.
+ */
+@Service
+public class ProductCacheService implements CacheCodec<Product> {
+
+    private static final String CACHE_NAME = "products";
+
+    private final RemoteCache remoteCache;
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+
+    private final int localMaxEntries;
+
+    private final Duration localTtl;
+
+    private final Duration remoteTtl;
+
+    private final Duration leaseTimeout;
+
+    private final Map<String, TwoLevelCache<Product>> caches = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ProductCacheService(
+            RemoteCache remoteCache,
+            MeterRegistry meterRegistry,
+            @Value("${lab5.products.cache.enabled:false}") boolean enabled,
+            @Value("${lab5.products.cache.local-max-entries:10000}") int localMaxEntries,
+            @Value("${lab5.products.cache.local-ttl-ms:30000}") long localTtlMillis,
+            @Value("${lab5.products.cache.remote-ttl-ms:600000}") long remoteTtlMillis,
+            @Value("${lab5.products.cache.lease-timeout-ms:2000}") long leaseTimeoutMillis) {
+        this.remoteCache = remoteCache;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.localMaxEntries = localMaxEntries;
+        this.localTtl = Duration.ofMillis(localTtlMillis);
+        this.remoteTtl = Duration.ofMillis(remoteTtlMillis);
+        this.leaseTimeout = Duration.ofMillis(leaseTimeoutMillis);
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * @param loader reads the product from the database on a miss in both tiers
+     */
+    public Product findById(long id, Supplier<Product> loader) {
+        return this.cache().get(key(id), loader);
+    }
+
+    /**
+     * Runs after commit, so no instance can reload the old row once the
+     * invalidation has been seen; mutations outside a transaction invalidate
+     * immediately.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (this.enabled && event.type() != ProductChangedEvent.Type.CREATED) {
+            this.cache().invalidate(key(event.productId()));
+        }
+    }
+
+    /**
+     * Hit ratio of the current tenant's near-cache.
+     */
+    public double l1HitRatio() {
+        return this.cache().l1HitRatio();
+    }
+
+    /**
+     * Hit ratio of the shared tier for the current tenant.
+     */
+    public double l2HitRatio() {
+        return this.cache().l2HitRatio();
+    }
+
+    @Override
+    public byte[] encode(Product product) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeLong(out, product.getId());
+            writeString(out, product.getName());
+            writeLong(out, product.getPrice());
+            writeLong(out, product.getQuantity());
+            writeString(out, product.getTenantId());
+            out.writeBoolean(product.isDiscontinued());
+            out.writeBoolean(product.isArchived());
+            writeInstant(out, product.getArchivedAt());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Product decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            Product product = new Product();
+            product.setId(readLong(in));
+            product.setName(readString(in));
+            product.setPrice(readLong(in));
+            product.setQuantity(readLong(in));
+            product.setTenantId(readString(in));
+            product.setDiscontinued(in.readBoolean());
+            product.setArchived(in.readBoolean());
+            product.setArchivedAt(readInstant(in));
+            return product;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private TwoLevelCache<Product> cache() {
+        return this.caches.computeIfAbsent(TenantContext.current(), tenant -> new TwoLevelCache<>(
+                CACHE_NAME, Tags.of("tenant", tenant), this.remoteCache, this, this.meterRegistry,
+                this.localMaxEntries, this.localTtl, this.remoteTtl, this.leaseTimeout));
+    }
+
+    private static String key(long id) {
+        return TenantContext.current() + ":" + id;
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getEpochSecond());
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+    }
+}
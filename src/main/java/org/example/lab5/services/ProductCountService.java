@@ -0,0 +1,109 @@
+package org.example.lab5.services;
+
+import org.example.lab5.models.ProductChangedEvent;
+import org.example.lab5.models.TotalCountMode;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.tenancy.TenantContext;
+import org.example.lab5.tenancy.TenantRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provides the total number of products in the hot partition without paying a
+ * full-table count on every paged read. The cached value is loaded on first
+ * use, adjusted on create/delete/archive and periodically re-synchronised in
+ * the background. Counts are kept per tenant; the planner estimate covers the
+ * whole table, so approximate counts use the cached per-tenant value as soon
+ * as more than one tenant is configured.
+ */
+@Service
+public class ProductCountService {
+
+    private static final long UNKNOWN = -1L;
+
+    private final ProductRepository productRepository;
+
+    private final TenantRegistry tenantRegistry;
+
+    private final Map<String, AtomicLong> cachedCounts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ProductCountService(ProductRepository productRepository, TenantRegistry tenantRegistry) {
+        this.productRepository = productRepository;
+        this.tenantRegistry = tenantRegistry;
+    }
+
+    public long count(TotalCountMode mode) {
+        if (mode == null) {
+            throw new NullPointerException("Count mode cannot be null");
+        }
+        if (mode == TotalCountMode.EXACT) {
+            return this.refresh();
+        }
+        if (mode == TotalCountMode.APPROXIMATE) {
+            return this.approximate();
+        }
+        return this.cached();
+    }
+
+    /**
+     * Re-synchronises the cached count, but only once somebody has asked for it,
+     * so deployments that never request totals never pay for the scan.
+     */
+    @Scheduled(fixedDelayString = "${lab5.products.count.refresh-interval-ms:600000}",
+            initialDelayString = "${lab5.products.count.refresh-interval-ms:600000}")
+    public void refreshCachedCount() {
+        for (Map.Entry<String, AtomicLong> entry : this.cachedCounts.entrySet()) {
+            if (entry.getValue().get() != UNKNOWN) {
+                TenantContext.call(entry.getKey(), this::refresh);
+            }
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.CREATED
+                || event.type() == ProductChangedEvent.Type.RESTORED) {
+            this.adjust(1);
+        } else if ((event.type() == ProductChangedEvent.Type.DELETED && !event.fromArchive())
+                || event.type() == ProductChangedEvent.Type.ARCHIVED) {
+            this.adjust(-1);
+        }
+    }
+
+    private long refresh() {
+        long count = this.productRepository.countByArchivedFalse();
+        this.cachedCount().set(count);
+        return count;
+    }
+
+    private long cached() {
+        long count = this.cachedCount().get();
+        return count == UNKNOWN ? this.refresh() : count;
+    }
+
+    private long approximate() {
+        if (this.tenantRegistry.isMultiTenant()) {
+            return this.cached();
+        }
+        Long estimate = this.productRepository.estimateCount();
+        if (estimate == null || estimate < 0) {
+            return this.cached();
+        }
+        return estimate;
+    }
+
+    private void adjust(long delta) {
+        this.cachedCount().updateAndGet(count -> count == UNKNOWN ? UNKNOWN : Math.max(0, count + delta));
+    }
+
+    private AtomicLong cachedCount() {
+        return this.cachedCounts.computeIfAbsent(TenantContext.current(), tenant -> new AtomicLong(UNKNOWN));
+    }
+}
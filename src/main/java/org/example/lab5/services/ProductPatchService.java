@@ -0,0 +1,144 @@
+package org.example.lab5.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductChangedEvent;
+import org.example.lab5.repositories.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigInteger;
+import java.util.Map;
+
+/**
+ * Applies JSON merge patches (RFC 7396) to products with a single UPDATE that
+ * only sets the supplied columns. The row is locked and read beforehand only
+ * to report its previous state to event listeners; it is never merged back.
+ */
+@Service
+public class ProductPatchService {
+
+    private static final String NAME = "name";
+
+    private static final String PRICE = "price";
+
+    private static final String QUANTITY = "quantity";
+
+    private static final String DISCONTINUED = "discontinued";
+
+    private final ProductRepository productRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public ProductPatchService(ProductRepository productRepository, ApplicationEventPublisher eventPublisher) {
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * @param id    product to update
+     * @param patch merge patch; a {@code null} value clears the column, and
+     *              clearing {@code discontinued} restores an archived product
+     * @return the product after the update
+     */
+    @Transactional
+    public Product patch(long id, Map<String, Object> patch) {
+        if (patch == null) {
+            throw new NullPointerException("Patch cannot be null");
+        }
+        Product previous = null;
+        if (!patch.isEmpty()) {
+            CriteriaUpdate<Product> update = this.buildUpdate(id, patch);
+            previous = this.entityManager.find(Product.class, id, LockModeType.PESSIMISTIC_WRITE);
+            if (previous == null) {
+                throw notFound(id);
+            }
+            this.entityManager.detach(previous);
+            int updated = this.entityManager.createQuery(update).executeUpdate();
+            if (updated == 0) {
+                throw notFound(id);
+            }
+        }
+        boolean restored = Boolean.FALSE.equals(patch.get(DISCONTINUED))
+                && this.productRepository.restoreById(id) > 0;
+        Product product = this.productRepository.findById(id).orElseThrow(() -> notFound(id));
+        if (!patch.isEmpty()) {
+            ProductChangedEvent.Type type = restored
+                    ? ProductChangedEvent.Type.RESTORED
+                    : ProductChangedEvent.Type.UPDATED;
+            this.eventPublisher.publishEvent(new ProductChangedEvent(type, id, product, previous));
+        }
+        return product;
+    }
+
+    private CriteriaUpdate<Product> buildUpdate(long id, Map<String, Object> patch) {
+        CriteriaBuilder builder = this.entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Product> update = builder.createCriteriaUpdate(Product.class);
+        Root<Product> product = update.from(Product.class);
+        for (Map.Entry<String, Object> field : patch.entrySet()) {
+            String column = field.getKey();
+            Object value = field.getValue();
+            if (NAME.equals(column)) {
+                String name = asString(column, value);
+                update.set(product.<String>get(column),
+                        name != null ? builder.literal(name) : builder.nullLiteral(String.class));
+            } else if (PRICE.equals(column) || QUANTITY.equals(column)) {
+                Long number = asLong(column, value);
+                update.set(product.<Long>get(column),
+                        number != null ? builder.literal(number) : builder.nullLiteral(Long.class));
+            } else if (DISCONTINUED.equals(column)) {
+                if (!(value instanceof Boolean discontinued)) {
+                    throw invalidValue(column);
+                }
+                update.set(product.<Boolean>get(column), discontinued);
+            } else {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Field '" + column + "' cannot be patched");
+            }
+        }
+        update.where(
+                builder.equal(product.get("id"), id),
+                builder.isFalse(product.<Boolean>get("deleted")));
+        return update;
+    }
+
+    private static String asString(String field, Object value) {
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        throw invalidValue(field);
+    }
+
+    private static Long asLong(String field, Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof BigInteger bigInteger && bigInteger.bitLength() < Long.SIZE) {
+            return bigInteger.longValue();
+        }
+        throw invalidValue(field);
+    }
+
+    private static ResponseStatusException invalidValue(String field) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid value for field '" + field + "'");
+    }
+
+    private static ResponseStatusException notFound(long id) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Product " + id + " not found");
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.lab5.services;
+
+import org.example.lab5.repositories.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Physically removes soft-deleted products in small batches. Runs on a cron
+ * schedule meant to fall into off-peak hours; each batch is its own short
+ * transaction and batches are separated by a pause, so the purge rate and the
+ * time rows stay locked are both bounded.
+ */
+@Service
+public class ProductPurgeService {
+
+    private final ProductRepository productRepository;
+
+    private final Duration retention;
+
+    private final int batchSize;
+
+    private final int maxBatchesPerRun;
+
+    private final long pauseBetweenBatchesMillis;
+
+    @Autowired
+    public ProductPurgeService(
+            ProductRepository productRepository,
+            @Value("${lab5.products.purge.retention-ms:3600000}") long retentionMillis,
+            @Value("${lab5.products.purge.batch-size:500}") int batchSize,
+            @Value("${lab5.products.purge.max-batches-per-run:200}") int maxBatchesPerRun,
+            @Value("${lab5.products.purge.pause-between-batches-ms:100}") long pauseBetweenBatchesMillis) {
+        this.productRepository = productRepository;
+        this.retention = Duration.ofMillis(retentionMillis);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.pauseBetweenBatchesMillis = pauseBetweenBatchesMillis;
+    }
+
+    /**
+     * @return number of purged products
+     */
+    @Scheduled(cron = "${lab5.products.purge.cron:0 */5 1-5 * * *}")
+    public int purge() {
+        Instant cutoff = Instant.now().minus(this.retention);
+        int purged = 0;
+        for (int batch = 0; batch < this.maxBatchesPerRun; batch++) {
+            int deleted = this.productRepository.purgeDeleted(cutoff, this.batchSize);
+            purged += deleted;
+            if (deleted < this.batchSize || !this.pause()) {
+                break;
+            }
+        }
+        return purged;
+    }
+
+    private boolean pause() {
+        if (this.pauseBetweenBatchesMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(this.pauseBetweenBatchesMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.example.lab5.services;
+
+import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductChangedEvent;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.search.NameIndex;
+import org.example.lab5.tenancy.TenantContext;
+import org.example.lab5.tenancy.TenantRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-process {@link NameIndex} over product names, one per tenant, so a
+ * query's limit only counts the caller's own products. The indexes are kept
+ * in sync from {@link ProductChangedEvent}s, which are applied to the index
+ * of the tenant that published them, and each can be rebuilt from the
+ * database at any time.
+ */
+@Service
+public class ProductSearchService {
+
+    /**
+     * Largest number of hits returned by one query; larger limits are capped.
+     */
+    public static final int MAX_LIMIT = 100;
+
+    private final ProductRepository productRepository;
+
+    private final TenantRegistry tenantRegistry;
+
+    private final int rebuildBatchSize;
+
+    private final boolean rebuildOnStartup;
+
+    private final Object writeLock = new Object();
+
+    private final Map<String, NameIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Mutations that arrived while a tenant's index was being rebuilt, keyed
+     * by tenant; a tenant is present only while its rebuild runs.
+     */
+    private final Map<String, Queue<ProductChangedEvent>> eventsDuringRebuild = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ProductSearchService(
+            ProductRepository productRepository,
+            TenantRegistry tenantRegistry,
+            @Value("${lab5.products.search.rebuild-batch-size:1000}") int rebuildBatchSize,
+            @Value("${lab5.products.search.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+        this.productRepository = productRepository;
+        this.tenantRegistry = tenantRegistry;
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    public List<Product> search(String query, int limit) {
+        List<Long> ids = this.searchIds(query, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product product : this.productRepository.findAllById(ids)) {
+            byId.put(product.getId(), product);
+        }
+        List<Product> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = byId.get(id);
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resolves a query against the current tenant's index only, without
+     * touching the database. Results are ordered by matching token, so
+     * shorter completions come first.
+     *
+     * @param limit maximum number of hits, capped at {@value #MAX_LIMIT}
+     */
+    public List<Long> searchIds(String query, int limit) {
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        NameIndex index = this.indexes.get(TenantContext.current());
+        if (index == null) {
+            return List.of();
+        }
+        return index.search(query, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Rebuilds the current tenant's index from the products table using
+     * keyset pagination and swaps it in atomically; mutations that arrive
+     * meanwhile are replayed on top of the new index.
+     *
+     * @return number of indexed products
+     */
+    public synchronized int rebuild() {
+        String tenant = TenantContext.current();
+        NameIndex index = new NameIndex();
+        this.eventsDuringRebuild.put(tenant, new ConcurrentLinkedQueue<>());
+        try {
+            long lastId = Long.MIN_VALUE;
+            List<Product> batch;
+            do {
+                batch = this.productRepository.findByArchivedFalseAndIdGreaterThanOrderByIdAsc(
+                        lastId, Limit.of(this.rebuildBatchSize));
+                for (Product product : batch) {
+                    index.put(product.getId(), product.getName());
+                    lastId = product.getId();
+                }
+            } while (batch.size() == this.rebuildBatchSize);
+
+            synchronized (this.writeLock) {
+                this.indexes.put(tenant, index);
+                for (ProductChangedEvent event : this.eventsDuringRebuild.remove(tenant)) {
+                    apply(index, event);
+                }
+            }
+            return index.size();
+        } finally {
+            this.eventsDuringRebuild.remove(tenant);
+        }
+    }
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        if (this.rebuildOnStartup) {
+            for (String tenant : this.tenantRegistry.tenants()) {
+                TenantContext.call(tenant, this::rebuild);
+            }
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        String tenant = TenantContext.current();
+        synchronized (this.writeLock) {
+            apply(this.indexes.computeIfAbsent(tenant, key -> new NameIndex()), event);
+            Queue<ProductChangedEvent> pending = this.eventsDuringRebuild.get(tenant);
+            if (pending != null) {
+                pending.add(event);
+            }
+        }
+    }
+
+    private static void apply(NameIndex index, ProductChangedEvent event) {
+        if (event.leavesLiveProducts()) {
+            index.remove(event.productId());
+        } else {
+            index.put(event.productId(), event.product().getName());
+        }
+    }
+}
@@ -1,47 +1,346 @@
 package org.example.lab5.services;
 
 import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductChangedEvent;
+import org.example.lab5.models.ProductIdRange;
+import org.example.lab5.models.ProductScanPage;
+import org.example.lab5.models.TotalCountMode;
 import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.tenancy.TenantContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
 
 @Service
 public class ProductService {
 
+    /**
+     * Response header carrying the product count of paged listings.
+     */
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    private static final String CURSOR_SEPARATOR = ":";
+
+    /**
+     * Id ranges handed to each worker of {@link #aggregate}; oversplitting
+     * evens out shards whose ids are sparser than others.
+     */
+    private static final int SHARDS_PER_WORKER = 4;
+
+    private static final int SCAN_BATCH_SIZE = 1_000;
+
     private final ProductRepository productRepository;
 
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final IdempotencyService idempotencyService;
+
+    private final ProductSnapshotService productSnapshotService;
+
+    private final ProductCacheService productCacheService;
+
+    private final ProductCountService productCountService;
+
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(
+            ProductRepository productRepository,
+            ApplicationEventPublisher eventPublisher,
+            IdempotencyService idempotencyService,
+            ProductSnapshotService productSnapshotService,
+            ProductCacheService productCacheService,
+            ProductCountService productCountService) {
         this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.idempotencyService = idempotencyService;
+        this.productSnapshotService = productSnapshotService;
+        this.productCacheService = productCacheService;
+        this.productCountService = productCountService;
     }
 
+    /**
+     * Pages through active products; only the hot partition is scanned.
+     */
     public List<Product> findAll(int pageNumber, int pageSize) {
-        return this.productRepository.findAll(PageRequest.of(pageNumber, pageSize)).toList();
+        if (this.productSnapshotService.isEnabled()) {
+            return this.productSnapshotService.findAll(pageNumber, pageSize);
+        }
+        return this.productRepository.findAllByArchivedFalse(PageRequest.of(pageNumber, pageSize)).getContent();
+    }
+
+    public List<Product> findAll(int pageNumber, int pageSize, boolean includeArchived) {
+        if (!includeArchived) {
+            return this.findAll(pageNumber, pageSize);
+        }
+        return this.productRepository.findAllBy(PageRequest.of(pageNumber, pageSize)).getContent();
     }
 
+    /**
+     * Runs {@link #findAll(int, int, boolean)} and, if {@code total} is set, the
+     * product count on the task executor, releasing the servlet thread. The
+     * request deadline travels with the task, so a client that disconnects
+     * cancels the queries instead of leaving them to hold a pool connection
+     * until they complete. The executor is bounded; when its queue is full the
+     * call fails with {@link org.springframework.core.task.TaskRejectedException}.
+     *
+     * @return the page, with the count in {@value #TOTAL_COUNT_HEADER} if requested
+     */
+    @Async
+    public CompletableFuture<ResponseEntity<List<Product>>> findAllAsync(
+            int pageNumber, int pageSize, boolean includeArchived, TotalCountMode total) {
+        List<Product> products = this.findAll(pageNumber, pageSize, includeArchived);
+        if (total == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(products));
+        }
+        long count = this.productCountService.count(total);
+        return CompletableFuture.completedFuture(ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(count))
+                .body(products));
+    }
+
+    /**
+     * Looks the product up by primary key in either partition, so archived
+     * products stay addressable. Served from the snapshot or, when enabled,
+     * the shared product cache before falling back to the database; the
+     * snapshot only holds live products, so its misses go to the database.
+     */
     public Product findById(long id) {
+        if (this.productSnapshotService.isEnabled()) {
+            Product product = this.productSnapshotService.findById(id);
+            if (product != null) {
+                return product;
+            }
+        } else if (this.productCacheService.isEnabled()) {
+            return this.productCacheService.findById(id, () -> this.productRepository.findById(id).orElse(null));
+        }
         return this.productRepository.findById(id).orElse(null);
     }
 
+    /**
+     * Pins the id range of a sharded scan. Every worker of one scan passes the
+     * same token to its first {@link #scan} call, so all shards are cut from
+     * the same range even if products are added or removed while the workers
+     * start. A catalog that is empty when the scan starts yields a token whose
+     * range is empty.
+     */
+    public String startScan() {
+        ProductIdRange range = this.productRepository.findIdRange();
+        if (range == null || range.getMinId() == null) {
+            return 1 + CURSOR_SEPARATOR + 0;
+        }
+        return range.getMinId() + CURSOR_SEPARATOR + range.getMaxId();
+    }
+
+    /**
+     * Reads one batch of shard {@code shard} out of {@code shards}. The id
+     * range pinned by {@code token} (see {@link #startScan}) is split into
+     * contiguous ranges, and each shard is walked with keyset pagination, so
+     * independent workers read disjoint slices without offsets. Later batches
+     * pass the returned cursor instead of the token; it carries the range
+     * bound, which keeps a shard stable while products are added. The last
+     * shard is open-ended and also sees products created during the scan.
+     */
+    public ProductScanPage scan(int shard, int shards, String token, String cursor, int limit) {
+        if (shards < 1 || shard < 0 || shard >= shards) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "shard must be between 0 and shards - 1, got " + shard + " of " + shards);
+        }
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        long after;
+        long upperBound;
+        if (cursor == null) {
+            if (token == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A scan token or cursor is required");
+            }
+            long[] range = parsePair(token, "scan token");
+            if (range[1] < range[0]) {
+                return new ProductScanPage(shard, shards, List.of(), null);
+            }
+            after = shardStart(range[0], range[1], shard, shards) - 1;
+            upperBound = shardStart(range[0], range[1], shard + 1, shards);
+        } else {
+            long[] bounds = parsePair(cursor, "scan cursor");
+            after = bounds[0];
+            upperBound = bounds[1];
+        }
+        List<Product> products = this.productRepository
+                .findByArchivedFalseAndIdGreaterThanAndIdLessThanOrderByIdAsc(after, upperBound, Limit.of(limit));
+        String nextCursor = products.size() < limit
+                ? null
+                : products.get(products.size() - 1).getId() + CURSOR_SEPARATOR + upperBound;
+        return new ProductScanPage(shard, shards, products, nextCursor);
+    }
+
+    /**
+     * Folds every active product into a result using all available cores.
+     *
+     * @see #aggregate(int, Supplier, BiConsumer, BinaryOperator)
+     */
+    public <A> A aggregate(Supplier<A> identity, BiConsumer<A, Product> accumulator, BinaryOperator<A> combiner) {
+        return this.aggregate(Runtime.getRuntime().availableProcessors(), identity, accumulator, combiner);
+    }
+
+    /**
+     * Folds every active product into a result on a dedicated fork-join pool.
+     * The id space is split into {@code parallelism * 4} ranges; each task
+     * walks its range in keyset batches into its own accumulator, and the
+     * partial results are combined in shard order. Tasks hold a connection
+     * only while a batch is read, but {@code parallelism} should still stay
+     * within the connection pool size. Tasks read the caller's tenant.
+     */
+    public <A> A aggregate(int parallelism, Supplier<A> identity, BiConsumer<A, Product> accumulator,
+                           BinaryOperator<A> combiner) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        ProductIdRange range = this.productRepository.findIdRange();
+        if (range == null || range.getMinId() == null) {
+            return identity.get();
+        }
+        int shards = parallelism * SHARDS_PER_WORKER;
+        String tenant = TenantContext.current();
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            List<ForkJoinTask<A>> tasks = new ArrayList<>(shards);
+            for (int shard = 0; shard < shards; shard++) {
+                long after = shardStart(range.getMinId(), range.getMaxId(), shard, shards) - 1;
+                long upperBound = shardStart(range.getMinId(), range.getMaxId(), shard + 1, shards);
+                tasks.add(pool.submit(() -> TenantContext.call(tenant,
+                        () -> this.foldRange(after, upperBound, identity.get(), accumulator))));
+            }
+            A result = identity.get();
+            for (ForkJoinTask<A> task : tasks) {
+                result = combiner.apply(result, task.join());
+            }
+            return result;
+        }
+    }
+
+    private <A> A foldRange(long after, long upperBound, A container, BiConsumer<A, Product> accumulator) {
+        List<Product> batch;
+        do {
+            batch = this.productRepository.findByArchivedFalseAndIdGreaterThanAndIdLessThanOrderByIdAsc(
+                    after, upperBound, Limit.of(SCAN_BATCH_SIZE));
+            for (Product product : batch) {
+                accumulator.accept(container, product);
+            }
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == SCAN_BATCH_SIZE);
+        return container;
+    }
+
+    /**
+     * Lowest id of {@code shard} (inclusive), which is also the exclusive
+     * upper bound of the shard before it, so every id falls into exactly one
+     * shard. The first shard starts below every id and the last one ends
+     * above every id; callers read a shard as {@code start - 1 < id < next start}.
+     */
+    private static long shardStart(long minId, long maxId, int shard, int shards) {
+        if (shard == 0) {
+            return Long.MIN_VALUE + 1;
+        }
+        if (shard == shards) {
+            return Long.MAX_VALUE;
+        }
+        long span = maxId - minId + 1;
+        return minId + span / shards * shard + Math.min(shard, span % shards);
+    }
+
+    private static long[] parsePair(String value, String what) {
+        String[] parts = value.split(CURSOR_SEPARATOR);
+        try {
+            if (parts.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed " + what + ": " + value);
+        }
+    }
+
     public Long create(Product product) {
         if (product == null) {
             throw new NullPointerException("Product cannot be null");
         }
-        return this.productRepository.save(product).getId();
+        Product saved = this.productRepository.save(product);
+        this.publish(ProductChangedEvent.Type.CREATED, saved.getId(), saved, null);
+        return saved.getId();
+    }
+
+    /**
+     * Creates the product at most once per idempotency key; retries with the
+     * same key return the id of the product created by the first attempt.
+     */
+    public Long create(Product product, String idempotencyKey) {
+        if (product == null) {
+            throw new NullPointerException("Product cannot be null");
+        }
+        return this.idempotencyService.execute(idempotencyKey, product, () -> this.create(product));
     }
 
+    /**
+     * Replaces the product's editable fields. The archive state is not part of
+     * the request body, so it is carried over from the stored row; otherwise
+     * a PUT would move an archived product back to the hot partition. The one
+     * exception is an archived product that is no longer discontinued, which
+     * is restored to the hot partition.
+     */
     public Product update(Product product) {
         if (product == null) {
             throw new NullPointerException("Product cannot be null");
         }
-        return this.productRepository.save(product);
+        boolean restored = false;
+        Product stored = product.getId() == null ? null : this.productRepository.findById(product.getId()).orElse(null);
+        if (stored != null && stored.isArchived()) {
+            restored = !product.isDiscontinued();
+            product.setArchived(!restored);
+            product.setArchivedAt(restored ? null : stored.getArchivedAt());
+        }
+        Product saved = this.productRepository.save(product);
+        this.publish(restored ? ProductChangedEvent.Type.RESTORED : ProductChangedEvent.Type.UPDATED,
+                saved.getId(), saved, stored);
+        return saved;
     }
 
+    /**
+     * Soft deletes the product; the row is removed later by {@link ProductPurgeService}.
+     * The hot partition is tried first, and the event records which partition
+     * the row was in so listeners over live products can ignore archived deletions.
+     * The row is read first only so the event can carry its previous state.
+     */
     public void delete(long id) {
-        this.productRepository.deleteById(id);
+        Product previous = this.productRepository.findById(id).orElse(null);
+        Instant now = Instant.now();
+        if (this.productRepository.softDeleteById(id, now) > 0) {
+            this.eventPublisher.publishEvent(
+                    new ProductChangedEvent(ProductChangedEvent.Type.DELETED, id, null, previous, false));
+        } else if (this.productRepository.softDeleteArchivedById(id, now) > 0) {
+            this.eventPublisher.publishEvent(
+                    new ProductChangedEvent(ProductChangedEvent.Type.DELETED, id, null, previous, true));
+        }
+    }
+
+    private void publish(ProductChangedEvent.Type type, Long id, Product product, Product previous) {
+        if (id != null) {
+            this.eventPublisher.publishEvent(new ProductChangedEvent(type, id, product, previous));
+        }
     }
 }
@@ -0,0 +1,218 @@
+package org.example.lab5.services;
+
+import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductChangedEvent;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.snapshot.CatalogColumnStore;
+import org.example.lab5.tenancy.TenantContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read-only "snapshot mode" for read-mostly deployments: the whole catalog is
+ * loaded into an off-heap {@link CatalogColumnStore} and {@link ProductService}
+ * serves {@code findById} and {@code findAll} from it without touching the
+ * database. The snapshot follows local mutations through
+ * {@link ProductChangedEvent}s and is periodically reloaded to pick up changes
+ * made by other instances.
+ * <p>
+ * The snapshot holds the default tenant's hot partition only; it is loaded
+ * from threads with no tenant bound, and requests for other tenants go to the
+ * database. Archived products are not in it, so callers fall back to the
+ * database when a lookup misses.
+ */
+@Service
+public class ProductSnapshotService {
+
+    private final ProductRepository productRepository;
+
+    private final boolean enabled;
+
+    private final int loadBatchSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ConcurrentLinkedQueue<ProductChangedEvent> eventsDuringReload = new ConcurrentLinkedQueue<>();
+
+    private volatile CatalogColumnStore store;
+
+    private volatile boolean reloading;
+
+    @Autowired
+    public ProductSnapshotService(
+            ProductRepository productRepository,
+            @Value("${lab5.products.snapshot.enabled:false}") boolean enabled,
+            @Value("${lab5.products.snapshot.load-batch-size:5000}") int loadBatchSize) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+        this.loadBatchSize = loadBatchSize;
+    }
+
+    /**
+     * @return whether reads of the current tenant should be served from the
+     * snapshot; {@code false} until the first load has completed
+     */
+    public boolean isEnabled() {
+        return this.enabled && this.store != null && TenantContext.isDefault();
+    }
+
+    /**
+     * @return the live product with {@code id}, or {@code null} if the
+     * snapshot does not hold it
+     */
+    public Product findById(long id) {
+        this.lock.readLock().lock();
+        try {
+            CatalogColumnStore current = this.store;
+            int row = current.rowOf(id);
+            return row < 0 ? null : toProduct(current, row);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    public List<Product> findAll(int pageNumber, int pageSize) {
+        if (pageNumber < 0) {
+            throw new IllegalArgumentException("Page index must not be less than zero");
+        }
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        this.lock.readLock().lock();
+        try {
+            CatalogColumnStore current = this.store;
+            long offset = (long) pageNumber * pageSize;
+            if (offset >= current.size()) {
+                return new ArrayList<>();
+            }
+            int end = (int) Math.min(current.size(), offset + pageSize);
+            List<Product> page = new ArrayList<>(end - (int) offset);
+            for (int rank = (int) offset; rank < end; rank++) {
+                page.add(toProduct(current, current.rowAt(rank)));
+            }
+            return page;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the catalog into a new store with keyset pagination and swaps it
+     * in; mutations that arrive meanwhile are replayed on top of it.
+     *
+     * @return number of products in the snapshot
+     */
+    public synchronized int reload() {
+        this.reloading = true;
+        try {
+            CatalogColumnStore loaded = new CatalogColumnStore(this.loadBatchSize);
+            long lastId = Long.MIN_VALUE;
+            List<Product> batch;
+            do {
+                batch = this.productRepository.findByArchivedFalseAndIdGreaterThanOrderByIdAsc(
+                        lastId, Limit.of(this.loadBatchSize));
+                for (Product product : batch) {
+                    put(loaded, product);
+                    lastId = product.getId();
+                }
+            } while (batch.size() == this.loadBatchSize);
+
+            this.lock.writeLock().lock();
+            try {
+                this.store = loaded;
+                this.reloading = false;
+                ProductChangedEvent event;
+                while ((event = this.eventsDuringReload.poll()) != null) {
+                    apply(loaded, event);
+                }
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+            return loaded.size();
+        } finally {
+            this.reloading = false;
+            this.eventsDuringReload.clear();
+        }
+    }
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        if (this.enabled) {
+            this.reload();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${lab5.products.snapshot.reload-interval-ms:300000}",
+            initialDelayString = "${lab5.products.snapshot.reload-interval-ms:300000}")
+    public void scheduledReload() {
+        if (this.isEnabled()) {
+            this.reload();
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!this.enabled || !TenantContext.isDefault()) {
+            return;
+        }
+        this.lock.writeLock().lock();
+        try {
+            if (this.store != null) {
+                apply(this.store, event);
+            }
+            if (this.reloading) {
+                this.eventsDuringReload.add(event);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /** Off-heap bytes held by the current snapshot. */
+    public long offHeapBytes() {
+        CatalogColumnStore current = this.store;
+        return current == null ? 0 : current.offHeapBytes();
+    }
+
+    private static void apply(CatalogColumnStore store, ProductChangedEvent event) {
+        if (event.leavesLiveProducts()) {
+            store.remove(event.productId());
+        } else {
+            put(store, event.product());
+        }
+    }
+
+    private static void put(CatalogColumnStore store, Product product) {
+        store.upsert(product.getId(), product.getName(), toColumn(product.getPrice()), toColumn(product.getQuantity()),
+                product.isDiscontinued());
+    }
+
+    private static Product toProduct(CatalogColumnStore store, int row) {
+        Product product = new Product();
+        product.setId(store.idAt(row));
+        product.setName(store.nameAt(row));
+        product.setPrice(fromColumn(store.priceAt(row)));
+        product.setQuantity(fromColumn(store.quantityAt(row)));
+        product.setDiscontinued(store.isDiscontinuedAt(row));
+        return product;
+    }
+
+    private static long toColumn(Long value) {
+        return value == null ? CatalogColumnStore.NULL : value;
+    }
+
+    private static Long fromColumn(long value) {
+        return value == CatalogColumnStore.NULL ? null : value;
+    }
+}
@@ -0,0 +1,191 @@
+package org.example.lab5.services;
+
+import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductChangedEvent;
+import org.example.lab5.models.ProductStats;
+import org.example.lab5.models.ProductTotals;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.tenancy.TenantContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves inventory aggregates from memory. The aggregates are computed once
+ * per tenant with a single aggregate query plus an index-friendly low-stock
+ * lookup, and then kept current by applying each {@link ProductChangedEvent}
+ * as a delta, so reports never scan the catalog on the request path. Only
+ * events that lack the product's previous state mark the totals stale; a
+ * listed product whose quantity changes while some low-stock products are not
+ * listed marks just the low-stock list stale. Both are reloaded in the
+ * background, and a rare full recompute corrects any drift from concurrent
+ * writes. Aggregates are cached and updated per tenant.
+ */
+@Service
+public class ProductStatsService {
+
+    private static final Comparator<Product> BY_QUANTITY = Comparator.comparing(Product::getQuantity);
+
+    private final ProductRepository productRepository;
+
+    private final long lowStockThreshold;
+
+    private final int lowStockLimit;
+
+    private final Set<String> staleTenants = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> staleLowStock = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, ProductStats> stats = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ProductStatsService(
+            ProductRepository productRepository,
+            @Value("${lab5.products.stats.low-stock-threshold:5}") long lowStockThreshold,
+            @Value("${lab5.products.stats.low-stock-limit:50}") int lowStockLimit) {
+        this.productRepository = productRepository;
+        this.lowStockThreshold = lowStockThreshold;
+        this.lowStockLimit = lowStockLimit;
+    }
+
+    public ProductStats stats() {
+        ProductStats current = this.stats.get(TenantContext.current());
+        return current != null ? current : this.refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${lab5.products.stats.refresh-interval-ms:30000}")
+    public void refreshIfStale() {
+        for (String tenant : this.stats.keySet()) {
+            if (this.staleTenants.contains(tenant)) {
+                TenantContext.call(tenant, this::refresh);
+            } else if (this.staleLowStock.remove(tenant)) {
+                TenantContext.run(tenant, this::refreshLowStock);
+            }
+        }
+    }
+
+    /**
+     * Consistency check: recomputes the aggregates of every loaded tenant from
+     * the database, discarding whatever drift the deltas accumulated.
+     */
+    @Scheduled(fixedDelayString = "${lab5.products.stats.reconcile-interval-ms:3600000}",
+            initialDelayString = "${lab5.products.stats.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        for (String tenant : this.stats.keySet()) {
+            TenantContext.call(tenant, this::refresh);
+        }
+    }
+
+    public synchronized ProductStats refresh() {
+        String tenant = TenantContext.current();
+        this.staleTenants.remove(tenant);
+        this.staleLowStock.remove(tenant);
+        ProductTotals totals = this.productRepository.aggregateTotals(this.lowStockThreshold);
+        ProductStats computed = new ProductStats(
+                valueOf(totals.getProductCount()),
+                valueOf(totals.getTotalQuantity()),
+                valueOf(totals.getTotalValue()),
+                this.lowStockThreshold,
+                valueOf(totals.getLowStockCount()),
+                this.findLowStock(),
+                Instant.now());
+        this.stats.put(tenant, computed);
+        return computed;
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        String tenant = TenantContext.current();
+        if (!this.stats.containsKey(tenant)) {
+            return;
+        }
+        boolean previousKnown = event.previous() != null
+                || event.fromArchive()
+                || event.type() == ProductChangedEvent.Type.CREATED
+                || event.type() == ProductChangedEvent.Type.RESTORED;
+        if (!previousKnown) {
+            this.staleTenants.add(tenant);
+            return;
+        }
+        this.stats.computeIfPresent(tenant, (key, current) ->
+                this.apply(key, current, event.productId(), event.previous(), event.product()));
+    }
+
+    private ProductStats apply(String tenant, ProductStats current, long id, Product removed, Product added) {
+        long lowStockCount = current.lowStockCount() - (this.isLowStock(removed) ? 1 : 0)
+                + (this.isLowStock(added) ? 1 : 0);
+        List<Product> lowStock = current.lowStock();
+        boolean listed = lowStock.stream().anyMatch(product -> product.getId() == id);
+        if (listed || this.isLowStock(added)) {
+            List<Product> updated = new ArrayList<>(lowStock);
+            updated.removeIf(product -> product.getId() == id);
+            if (this.isLowStock(added)) {
+                updated.add(added);
+                updated.sort(BY_QUANTITY);
+            }
+            lowStock = List.copyOf(updated.subList(0, Math.min(updated.size(), this.lowStockLimit)));
+            if (listed && lowStockCount > lowStock.size()) {
+                this.staleLowStock.add(tenant);
+            }
+        }
+        return new ProductStats(
+                current.productCount() - (isHot(removed) ? 1 : 0) + (isHot(added) ? 1 : 0),
+                current.totalQuantity() - quantityOf(removed) + quantityOf(added),
+                current.totalValue() - stockValueOf(removed) + stockValueOf(added),
+                this.lowStockThreshold,
+                lowStockCount,
+                lowStock,
+                Instant.now());
+    }
+
+    private void refreshLowStock() {
+        List<Product> lowStock = this.findLowStock();
+        this.stats.computeIfPresent(TenantContext.current(), (tenant, current) -> new ProductStats(
+                current.productCount(),
+                current.totalQuantity(),
+                current.totalValue(),
+                current.lowStockThreshold(),
+                current.lowStockCount(),
+                lowStock,
+                current.computedAt()));
+    }
+
+    private List<Product> findLowStock() {
+        return this.productRepository.findByArchivedFalseAndQuantityLessThanOrderByQuantityAsc(
+                this.lowStockThreshold, Limit.of(this.lowStockLimit));
+    }
+
+    private boolean isLowStock(Product product) {
+        return isHot(product) && product.getQuantity() != null && product.getQuantity() < this.lowStockThreshold;
+    }
+
+    private static boolean isHot(Product product) {
+        return product != null && !product.isArchived();
+    }
+
+    private static long quantityOf(Product product) {
+        return isHot(product) ? valueOf(product.getQuantity()) : 0L;
+    }
+
+    private static long stockValueOf(Product product) {
+        if (!isHot(product) || product.getPrice() == null || product.getQuantity() == null) {
+            return 0L;
+        }
+        return product.getPrice() * product.getQuantity();
+    }
+
+    private static long valueOf(Long value) {
+        return value == null ? 0L : value;
+    }
+}
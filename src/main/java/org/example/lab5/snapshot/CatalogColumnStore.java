@@ -0,0 +1,329 @@
+package org.example.lab5.snapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Columnar catalog table held in direct (off-heap) buffers. Every column is a
+ * primitive buffer indexed by row, flags such as {@code discontinued} take one
+ * byte per row, names are stored as UTF-8 in a shared byte
+ * area, and rows are located through an open-addressing hash index keyed by
+ * the primitive {@code long} id, so no per-entry objects are kept on the heap.
+ * <p>
+ * Rows never move: updates overwrite in place and deletions only unlink the id
+ * from the index, so iterating rows yields a stable order. Live rows are also
+ * listed densely in that order, so the n-th live row is found directly
+ * instead of by skipping over the rows before it. Space left behind by
+ * deletions and longer names is reclaimed by building a new store.
+ * <p>
+ * Not thread-safe; callers must guard concurrent access.
+ */
+public final class CatalogColumnStore {
+
+    /** Value stored for a {@code null} price or quantity. */
+    public static final long NULL = Long.MIN_VALUE;
+
+    private static final long NO_ID = Long.MIN_VALUE;
+
+    private static final int NO_ROW = -1;
+
+    private static final int NULL_NAME = -1;
+
+    private static final double MAX_LOAD_FACTOR = 0.7;
+
+    private static final byte DISCONTINUED = 1;
+
+    private LongBuffer ids;
+
+    private LongBuffer prices;
+
+    private LongBuffer quantities;
+
+    private ByteBuffer flags;
+
+    private IntBuffer nameOffsets;
+
+    private IntBuffer nameLengths;
+
+    private ByteBuffer names;
+
+    /** Live rows in ascending row order; the first {@code liveCount} entries are used. */
+    private IntBuffer liveRows;
+
+    private LongBuffer slotKeys;
+
+    private IntBuffer slotRows;
+
+    private int rowCapacity;
+
+    private int rowCount;
+
+    private int liveCount;
+
+    private int namesSize;
+
+    private int slotCapacity;
+
+    private int usedSlots;
+
+    public CatalogColumnStore(int initialRows) {
+        this.rowCapacity = Math.max(16, initialRows);
+        this.ids = longs(this.rowCapacity);
+        this.prices = longs(this.rowCapacity);
+        this.quantities = longs(this.rowCapacity);
+        this.flags = bytes(this.rowCapacity);
+        this.nameOffsets = ints(this.rowCapacity);
+        this.nameLengths = ints(this.rowCapacity);
+        this.names = bytes(this.rowCapacity * 16);
+        this.liveRows = ints(this.rowCapacity);
+        this.slotCapacity = Integer.highestOneBit((int) Math.min(1 << 29, (long) (this.rowCapacity / MAX_LOAD_FACTOR))) << 1;
+        this.slotKeys = emptySlots(this.slotCapacity);
+        this.slotRows = ints(this.slotCapacity);
+    }
+
+    /**
+     * Inserts the row for {@code id}, or overwrites it when the id is already present.
+     *
+     * @return the row the values were written to
+     */
+    public int upsert(long id, String name, long price, long quantity, boolean discontinued) {
+        if (id == NO_ID) {
+            throw new IllegalArgumentException("Id " + id + " is reserved");
+        }
+        int slot = this.findSlot(id);
+        int row = this.slotKeys.get(slot) == id ? this.slotRows.get(slot) : NO_ROW;
+        if (row == NO_ROW) {
+            row = this.appendRow(id);
+            if (this.slotKeys.get(slot) != id) {
+                this.usedSlots++;
+            }
+            this.slotKeys.put(slot, id);
+            this.slotRows.put(slot, row);
+            this.liveRows.put(this.liveCount, row);
+            this.liveCount++;
+            if (this.usedSlots > this.slotCapacity * MAX_LOAD_FACTOR) {
+                this.rehash(this.slotCapacity << 1);
+            }
+        }
+        this.prices.put(row, price);
+        this.quantities.put(row, quantity);
+        this.flags.put(row, discontinued ? DISCONTINUED : 0);
+        this.writeName(row, name);
+        return row;
+    }
+
+    /**
+     * @return {@code true} when the id was present
+     */
+    public boolean remove(long id) {
+        int slot = this.findSlot(id);
+        if (this.slotKeys.get(slot) != id || this.slotRows.get(slot) == NO_ROW) {
+            return false;
+        }
+        int row = this.slotRows.get(slot);
+        this.slotRows.put(slot, NO_ROW);
+        this.ids.put(row, NO_ID);
+        int rank = this.rankOf(row);
+        this.liveRows.put(rank, this.liveRows, rank + 1, this.liveCount - rank - 1);
+        this.liveCount--;
+        return true;
+    }
+
+    /**
+     * @return the row holding {@code id}, or -1 when it is not present
+     */
+    public int rowOf(long id) {
+        int slot = this.findSlot(id);
+        return this.slotKeys.get(slot) == id ? this.slotRows.get(slot) : NO_ROW;
+    }
+
+    /** Number of rows ever written, including rows whose id was removed. */
+    public int rowCount() {
+        return this.rowCount;
+    }
+
+    /** Number of ids currently present. */
+    public int size() {
+        return this.liveCount;
+    }
+
+    /**
+     * @param rank position among the live rows, from 0 to {@link #size()} - 1
+     * @return the row of the {@code rank}-th live id in row order
+     */
+    public int rowAt(int rank) {
+        if (rank < 0 || rank >= this.liveCount) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " out of " + this.liveCount);
+        }
+        return this.liveRows.get(rank);
+    }
+
+    public boolean isLive(int row) {
+        return this.ids.get(row) != NO_ID;
+    }
+
+    public long idAt(int row) {
+        return this.ids.get(row);
+    }
+
+    public long priceAt(int row) {
+        return this.prices.get(row);
+    }
+
+    public long quantityAt(int row) {
+        return this.quantities.get(row);
+    }
+
+    public boolean isDiscontinuedAt(int row) {
+        return (this.flags.get(row) & DISCONTINUED) != 0;
+    }
+
+    public String nameAt(int row) {
+        int length = this.nameLengths.get(row);
+        if (length == NULL_NAME) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        this.names.get(this.nameOffsets.get(row), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Bytes reserved in direct buffers by this store. */
+    public long offHeapBytes() {
+        return (long) this.rowCapacity * (3 * Long.BYTES + 3 * Integer.BYTES + Byte.BYTES)
+                + this.names.capacity()
+                + (long) this.slotCapacity * (Long.BYTES + Integer.BYTES);
+    }
+
+    private int appendRow(long id) {
+        if (this.rowCount == this.rowCapacity) {
+            this.growRows();
+        }
+        int row = this.rowCount++;
+        this.ids.put(row, id);
+        this.nameLengths.put(row, NULL_NAME);
+        return row;
+    }
+
+    private void writeName(int row, String name) {
+        if (name == null) {
+            this.nameLengths.put(row, NULL_NAME);
+            return;
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int currentLength = this.nameLengths.get(row);
+        int offset;
+        if (currentLength != NULL_NAME && bytes.length <= currentLength) {
+            offset = this.nameOffsets.get(row);
+        } else {
+            this.ensureNameCapacity(bytes.length);
+            offset = this.namesSize;
+            this.namesSize += bytes.length;
+        }
+        this.names.put(offset, bytes);
+        this.nameOffsets.put(row, offset);
+        this.nameLengths.put(row, bytes.length);
+    }
+
+    /** Binary search; live rows are appended in increasing row order. */
+    private int rankOf(int row) {
+        int low = 0;
+        int high = this.liveCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midRow = this.liveRows.get(mid);
+            if (midRow < row) {
+                low = mid + 1;
+            } else if (midRow > row) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        throw new IllegalStateException("Row " + row + " is not live");
+    }
+
+    private int findSlot(long id) {
+        int mask = this.slotCapacity - 1;
+        int slot = hash(id) & mask;
+        while (true) {
+            long key = this.slotKeys.get(slot);
+            if (key == id || key == NO_ID) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        LongBuffer oldKeys = this.slotKeys;
+        IntBuffer oldRows = this.slotRows;
+        int oldCapacity = this.slotCapacity;
+        this.slotCapacity = newCapacity;
+        this.slotKeys = emptySlots(newCapacity);
+        this.slotRows = ints(newCapacity);
+        this.usedSlots = 0;
+        for (int i = 0; i < oldCapacity; i++) {
+            long key = oldKeys.get(i);
+            int row = oldRows.get(i);
+            if (key != NO_ID && row != NO_ROW) {
+                int slot = this.findSlot(key);
+                this.slotKeys.put(slot, key);
+                this.slotRows.put(slot, row);
+                this.usedSlots++;
+            }
+        }
+    }
+
+    private void growRows() {
+        int newCapacity = this.rowCapacity << 1;
+        this.ids = longs(newCapacity).put(0, this.ids, 0, this.rowCount);
+        this.prices = longs(newCapacity).put(0, this.prices, 0, this.rowCount);
+        this.quantities = longs(newCapacity).put(0, this.quantities, 0, this.rowCount);
+        this.flags = bytes(newCapacity).put(0, this.flags, 0, this.rowCount);
+        this.nameOffsets = ints(newCapacity).put(0, this.nameOffsets, 0, this.rowCount);
+        this.nameLengths = ints(newCapacity).put(0, this.nameLengths, 0, this.rowCount);
+        this.liveRows = ints(newCapacity).put(0, this.liveRows, 0, this.liveCount);
+        this.rowCapacity = newCapacity;
+    }
+
+    private void ensureNameCapacity(int additional) {
+        if (this.namesSize + additional <= this.names.capacity()) {
+            return;
+        }
+        long required = (long) this.namesSize + additional;
+        int newCapacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(required, (long) this.names.capacity() << 1));
+        if (newCapacity < required) {
+            throw new IllegalStateException("Name storage exceeds " + newCapacity + " bytes");
+        }
+        this.names = bytes(newCapacity).put(0, this.names, 0, this.namesSize);
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static LongBuffer emptySlots(int capacity) {
+        LongBuffer buffer = longs(capacity);
+        for (int i = 0; i < capacity; i++) {
+            buffer.put(i, NO_ID);
+        }
+        return buffer;
+    }
+
+    private static LongBuffer longs(int capacity) {
+        return bytes(Math.multiplyExact(capacity, Long.BYTES)).asLongBuffer();
+    }
+
+    private static IntBuffer ints(int capacity) {
+        return bytes(Math.multiplyExact(capacity, Integer.BYTES)).asIntBuffer();
+    }
+
+    private static ByteBuffer bytes(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.lab5.tenancy;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every non-default tenant its own connection pool against the shared
+ * database, so a tenant can hold at most its quota of connections and a busy
+ * tenant queues on its own pool instead of starving the others. The default
+ * tenant uses the application's primary pool.
+ * <p>
+ * Tenant pools start from a copy of the primary pool's configuration, so they
+ * share its driver, {@code spring.datasource.hikari.*} and statement-cache
+ * settings, and only override the size and connection timeout. Quotas come
+ * from {@code lab5.tenancy.tenant.<id>.maximum-pool-size}, falling back to
+ * {@code lab5.tenancy.pool.maximum-pool-size}. Each pool
+ * publishes the usual {@code hikaricp.*} metrics under the pool name
+ * {@code lab5-tenant-<id>}.
+ */
+@Component
+public class TenantConnectionProvider implements MultiTenantConnectionProvider<String>, DisposableBean {
+
+    private final DataSource primaryDataSource;
+
+    private final Environment environment;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int defaultPoolSize;
+
+    private final long connectionTimeoutMillis;
+
+    private final ConcurrentHashMap<String, HikariDataSource> pools = new ConcurrentHashMap<>();
+
+    public TenantConnectionProvider(
+            DataSource primaryDataSource,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${lab5.tenancy.pool.maximum-pool-size:5}") int defaultPoolSize,
+            @Value("${lab5.tenancy.pool.connection-timeout-ms:2000}") long connectionTimeoutMillis) {
+        this.primaryDataSource = primaryDataSource;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.defaultPoolSize = defaultPoolSize;
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+    }
+
+    public DataSource dataSource(String tenant) {
+        if (TenantContext.DEFAULT_TENANT.equals(tenant)) {
+            return this.primaryDataSource;
+        }
+        return this.pools.computeIfAbsent(tenant, this::createPool);
+    }
+
+    @Override
+    public Connection getAnyConnection() throws SQLException {
+        return this.primaryDataSource.getConnection();
+    }
+
+    @Override
+    public void releaseAnyConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public Connection getConnection(String tenantIdentifier) throws SQLException {
+        return this.dataSource(tenantIdentifier).getConnection();
+    }
+
+    @Override
+    public void releaseConnection(String tenantIdentifier, Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isInstance(this);
+    }
+
+    @Override
+    public <U> U unwrap(Class<U> unwrapType) {
+        if (!this.isUnwrappableAs(unwrapType)) {
+            throw new IllegalArgumentException("Cannot unwrap to " + unwrapType);
+        }
+        return unwrapType.cast(this);
+    }
+
+    @Override
+    public void destroy() {
+        this.pools.values().forEach(HikariDataSource::close);
+        this.pools.clear();
+    }
+
+    private HikariDataSource createPool(String tenant) {
+        HikariConfig config = new HikariConfig();
+        primaryConfig(this.primaryDataSource).copyStateTo(config);
+        config.setPoolName("lab5-tenant-" + tenant);
+        config.setMaximumPoolSize(this.environment.getProperty(
+                "lab5.tenancy.tenant." + tenant + ".maximum-pool-size", Integer.class, this.defaultPoolSize));
+        config.setMinimumIdle(1);
+        config.setConnectionTimeout(this.connectionTimeoutMillis);
+        config.setMetricRegistry(null);
+        config.setHealthCheckRegistry(null);
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(this.meterRegistry));
+        return new HikariDataSource(config);
+    }
+
+    private static HikariConfig primaryConfig(DataSource primaryDataSource) {
+        try {
+            return primaryDataSource.unwrap(HikariDataSource.class);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Tenant pools require a Hikari primary data source", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.lab5.tenancy;
+
+import java.util.function.Supplier;
+
+/**
+ * Tenant on whose behalf the current thread works. Requests bind the tenant
+ * from their header; threads with nothing bound act for the default tenant.
+ * Background work that spans tenants binds each tenant in turn.
+ */
+public final class TenantContext {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String current() {
+        String tenant = CURRENT.get();
+        return tenant != null ? tenant : DEFAULT_TENANT;
+    }
+
+    public static boolean isDefault() {
+        return DEFAULT_TENANT.equals(current());
+    }
+
+    /**
+     * Binds {@code tenant} to the calling thread.
+     *
+     * @return the previously bound tenant, to be passed to {@link #restore}
+     */
+    public static String bind(String tenant) {
+        String previous = CURRENT.get();
+        CURRENT.set(tenant);
+        return previous;
+    }
+
+    public static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static <T> T call(String tenant, Supplier<T> work) {
+        String previous = bind(tenant);
+        try {
+            return work.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static void run(String tenant, Runnable work) {
+        String previous = bind(tenant);
+        try {
+            work.run();
+        } finally {
+            restore(previous);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.lab5.tenancy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Answers requests that could not get a connection within their tenant's
+ * pool quota with {@code 503 Service Unavailable}, and counts them per tenant
+ * as {@code lab5.tenant.pool.rejected}.
+ */
+@RestControllerAdvice
+public class TenantExceptionHandler {
+
+    static final String REJECTED = "lab5.tenant.pool.rejected";
+
+    private final MeterRegistry meterRegistry;
+
+    public TenantExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ProblemDetail cannotCreateTransaction(CannotCreateTransactionException ex) {
+        if (!(NestedExceptionUtils.getMostSpecificCause(ex) instanceof SQLTransientConnectionException)) {
+            return ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR, "Could not open transaction");
+        }
+        String tenant = TenantContext.current();
+        this.meterRegistry.counter(REJECTED, "tenant", tenant).increment();
+        return ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE,
+                "Connection quota of tenant " + tenant + " exhausted");
+    }
+}
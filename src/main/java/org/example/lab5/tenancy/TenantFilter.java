@@ -0,0 +1,114 @@
+package org.example.lab5.tenancy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binds the tenant named by the {@value #TENANT_HEADER} header, or the
+ * default tenant when it is absent, for the whole API request. Runs ahead of
+ * every other filter and interceptor so that the persistence context opened
+ * for the request already belongs to the tenant. Unknown tenants are
+ * rejected with {@code 400}.
+ * <p>
+ * Request latency is recorded per tenant as {@code lab5.tenant.requests},
+ * tagged with the tenant and response status.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class TenantFilter extends OncePerRequestFilter {
+
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+
+    static final String REQUESTS = "lab5.tenant.requests";
+
+    private final TenantRegistry tenantRegistry;
+
+    private final MeterRegistry meterRegistry;
+
+    public TenantFilter(TenantRegistry tenantRegistry, MeterRegistry meterRegistry) {
+        this.tenantRegistry = tenantRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    /**
+     * Async dispatches render results produced on other threads and must see
+     * the same tenant, for example when resolving an exception.
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(TENANT_HEADER);
+        String tenant = header == null || header.isBlank() ? TenantContext.DEFAULT_TENANT : header.trim();
+        if (!this.tenantRegistry.contains(tenant)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unknown tenant " + tenant);
+            return;
+        }
+        boolean initialDispatch = !this.isAsyncDispatch(request);
+        long start = System.nanoTime();
+        String previous = TenantContext.bind(tenant);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            TenantContext.restore(previous);
+            if (initialDispatch) {
+                this.recordOnCompletion(request, response, tenant, start);
+            }
+        }
+    }
+
+    private void recordOnCompletion(HttpServletRequest request, HttpServletResponse response, String tenant, long start) {
+        if (!request.isAsyncStarted()) {
+            this.record(tenant, response, start);
+            return;
+        }
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                record(tenant, response, start);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
+    private void record(String tenant, HttpServletResponse response, long start) {
+        Timer.builder(REQUESTS)
+                .tag("tenant", tenant)
+                .tag("status", String.valueOf(response.getStatus()))
+                .register(this.meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.lab5.tenancy;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands the thread's tenant to Hibernate when a session is opened, which then
+ * restricts every query on tenant-owned entities to that tenant.
+ */
+@Component
+public class TenantIdentifierResolver implements CurrentTenantIdentifierResolver<String> {
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return TenantContext.current();
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+}
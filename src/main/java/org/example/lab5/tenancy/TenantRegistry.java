@@ -0,0 +1,40 @@
+package org.example.lab5.tenancy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tenants served by this deployment, from {@code lab5.tenancy.tenants}. The
+ * default tenant is always included.
+ */
+@Component
+public class TenantRegistry {
+
+    private final Set<String> tenants = new LinkedHashSet<>();
+
+    public TenantRegistry(@Value("${lab5.tenancy.tenants:default}") List<String> tenants) {
+        this.tenants.add(TenantContext.DEFAULT_TENANT);
+        for (String tenant : tenants) {
+            if (!tenant.isBlank()) {
+                this.tenants.add(tenant.trim());
+            }
+        }
+    }
+
+    public Set<String> tenants() {
+        return Collections.unmodifiableSet(this.tenants);
+    }
+
+    public boolean contains(String tenant) {
+        return this.tenants.contains(tenant);
+    }
+
+    public boolean isMultiTenant() {
+        return this.tenants.size() > 1;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.lab5.tenancy;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Carries the submitting thread's tenant into tasks run on the application
+ * task executor, so {@code @Async} work reads the same tenant's data.
+ */
+public class TenantTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        String tenant = TenantContext.current();
+        return () -> TenantContext.run(tenant, runnable);
+    }
+}
@@ -0,0 +1,25 @@
+-- Schema previously maintained by hibernate.ddl-auto=update. Every statement is
+-- idempotent so existing databases are brought to the same state.
+
+create sequence if not exists products_seq start with 1 increment by 50;
+
+create table if not exists products (
+    id         bigint not null,
+    name       varchar(255),
+    price      bigint,
+    quantity   bigint,
+    primary key (id)
+);
+
+alter table products add column if not exists deleted boolean not null default false;
+alter table products add column if not exists deleted_at timestamp(6) with time zone;
+
+create table if not exists idempotency_records (
+    idempotency_key varchar(255) not null,
+    fingerprint     varchar(255) not null,
+    response        varchar(255),
+    created_at      timestamp(6) with time zone not null,
+    primary key (idempotency_key)
+);
+
+drop index if exists idx_products_deleted_id;
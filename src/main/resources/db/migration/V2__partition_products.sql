@@ -0,0 +1,40 @@
+-- Splits products into a hot partition (active products) and an archive
+-- partition, list-partitioned on the archived flag. Queries that filter on
+-- archived = false only touch products_hot, and archiving a product moves its
+-- row to products_archive.
+--
+-- The copy below rewrites the whole table; on large catalogs run this
+-- migration in a maintenance window.
+
+alter table products rename to products_unpartitioned;
+alter table products_unpartitioned rename constraint products_pkey to products_unpartitioned_pkey;
+
+create table products (
+    id          bigint not null,
+    name        varchar(255),
+    price       bigint,
+    quantity    bigint,
+    deleted     boolean not null default false,
+    deleted_at  timestamp(6) with time zone,
+    archived    boolean not null default false,
+    archived_at timestamp(6) with time zone,
+    primary key (id, archived)
+) partition by list (archived);
+
+create table products_hot partition of products for values in (false);
+create table products_archive partition of products for values in (true);
+
+insert into products (id, name, price, quantity, deleted, deleted_at)
+select id, name, price, quantity, deleted, deleted_at
+from products_unpartitioned;
+
+drop table products_unpartitioned;
+
+-- Live rows in id order: keyset scans and paged reads.
+create index idx_products_live_id on products (id) where deleted = false;
+-- Tombstones awaiting purge.
+create index idx_products_tombstones on products (deleted_at) where deleted = true;
+-- Low-stock lookups and archival candidates.
+create index idx_products_live_quantity on products (quantity) where deleted = false;
+
+analyze products;
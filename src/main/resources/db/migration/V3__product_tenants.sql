@@ -0,0 +1,13 @@
+-- Products are owned by a tenant. Rows created before multi-tenancy belong to
+-- the default tenant. Hibernate adds tenant_id to every query on products, so
+-- the live-row indexes used per tenant lead with it.
+
+alter table products add column if not exists tenant_id varchar(64) not null default 'default';
+
+-- Tenant-scoped keyset scans and paged reads.
+create index if not exists idx_products_tenant_live_id on products (tenant_id, id) where deleted = false;
+-- Tenant-scoped low-stock lookups and archival candidates.
+create index if not exists idx_products_tenant_live_quantity on products (tenant_id, quantity) where deleted = false;
+drop index if exists idx_products_live_quantity;
+
+analyze products;
@@ -0,0 +1,10 @@
+-- Products are archived when they are explicitly discontinued, not when they
+-- run out of stock. Existing rows, including already archived ones, start as
+-- not discontinued.
+
+alter table products add column if not exists discontinued boolean not null default false;
+
+-- Archival candidates: discontinued live products per tenant.
+create index if not exists idx_products_tenant_discontinued on products (tenant_id, id)
+    where deleted = false and discontinued = true;
+analyze products;
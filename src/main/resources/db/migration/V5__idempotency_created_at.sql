@@ -0,0 +1,2 @@
+-- Expired idempotency records are deleted in batches by created_at.
+create index if not exists idx_idempotency_records_created_at on idempotency_records (created_at);
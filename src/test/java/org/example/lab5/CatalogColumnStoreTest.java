@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import org.example.lab5.snapshot.CatalogColumnStore;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogColumnStoreTest {
+
+    @Test
+    void upsert_NewId_IsReadableByRow() {
+        CatalogColumnStore store = new CatalogColumnStore(4);
+
+        store.upsert(42L, "Laptop", 999L, 10L, true);
+        int row = store.rowOf(42L);
+
+        assertEquals(1, store.size());
+        assertEquals(42L, store.idAt(row));
+        assertEquals("Laptop", store.nameAt(row));
+        assertEquals(999L, store.priceAt(row));
+        assertEquals(10L, store.quantityAt(row));
+        assertTrue(store.isDiscontinuedAt(row));
+    }
+
+    @Test
+    void upsert_ExistingId_OverwritesInPlace() {
+        CatalogColumnStore store = new CatalogColumnStore(4);
+        int row = store.upsert(1L, "Phone", 499L, 20L, false);
+
+        int updatedRow = store.upsert(1L, "Smartphone with a longer name", 549L, 18L, false);
+
+        assertEquals(row, updatedRow);
+        assertEquals(1, store.rowCount());
+        assertEquals("Smartphone with a longer name", store.nameAt(row));
+        assertEquals(549L, store.priceAt(row));
+        assertFalse(store.isDiscontinuedAt(row));
+    }
+
+    @Test
+    void upsert_NullValues_AreStoredAsNullMarkers() {
+        CatalogColumnStore store = new CatalogColumnStore(4);
+
+        int row = store.upsert(1L, null, CatalogColumnStore.NULL, CatalogColumnStore.NULL, false);
+
+        assertNull(store.nameAt(row));
+        assertEquals(CatalogColumnStore.NULL, store.priceAt(row));
+    }
+
+    @Test
+    void remove_ExistingId_UnlinksRow() {
+        CatalogColumnStore store = new CatalogColumnStore(4);
+        int row = store.upsert(1L, "Tablet", 299L, 15L, false);
+
+        assertTrue(store.remove(1L));
+
+        assertEquals(-1, store.rowOf(1L));
+        assertFalse(store.isLive(row));
+        assertEquals(0, store.size());
+        assertFalse(store.remove(1L));
+    }
+
+    @Test
+    void rowAt_AfterRemovals_ReturnsLiveRowsInOrder() {
+        CatalogColumnStore store = new CatalogColumnStore(4);
+        for (long id = 1; id <= 20; id++) {
+            store.upsert(id, "Product " + id, id, id, false);
+        }
+
+        store.remove(1L);
+        store.remove(10L);
+        store.remove(20L);
+        store.upsert(1L, "Product 1", 1L, 1L, false);
+
+        assertEquals(18, store.size());
+        assertEquals(2L, store.idAt(store.rowAt(0)));
+        assertEquals(11L, store.idAt(store.rowAt(8)));
+        assertEquals(19L, store.idAt(store.rowAt(16)));
+        assertEquals(1L, store.idAt(store.rowAt(17)));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.rowAt(18));
+    }
+
+    @Test
+    void upsert_BeyondInitialCapacity_GrowsColumnsAndIndex() {
+        CatalogColumnStore store = new CatalogColumnStore(4);
+
+        for (long id = 1; id <= 10_000; id++) {
+            store.upsert(id, "Product " + id, id * 10, id, false);
+        }
+
+        assertEquals(10_000, store.size());
+        for (long id = 1; id <= 10_000; id++) {
+            int row = store.rowOf(id);
+            assertEquals("Product " + id, store.nameAt(row));
+            assertEquals(id * 10, store.priceAt(row));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.lab5.deadline.Deadline;
+import org.example.lab5.deadline.DeadlineExceptionHandler;
+import org.example.lab5.deadline.DeadlineInterceptor;
+import org.example.lab5.deadline.DeadlineMetrics;
+import org.example.lab5.deadline.RequestDeadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeadlineInterceptorTest {
+
+    private SimpleMeterRegistry registry;
+
+    private DeadlineInterceptor interceptor;
+
+    private MockHttpServletRequest request;
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        MockEnvironment environment = new MockEnvironment().withProperty("test.budget-ms", "2000");
+        interceptor = new DeadlineInterceptor(environment, new DeadlineMetrics(registry), 10_000);
+        request = new MockHttpServletRequest("GET", "/api/products");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.restore(null);
+    }
+
+    @Test
+    void preHandle_UnannotatedEndpoint_UsesDefaultBudget() throws Exception {
+        interceptor.preHandle(request, response, handler("unannotated"));
+
+        assertEquals(10_000, RequestDeadline.current().budgetMillis());
+    }
+
+    @Test
+    void preHandle_AnnotatedEndpoint_UsesResolvedBudget() throws Exception {
+        interceptor.preHandle(request, response, handler("annotated"));
+
+        assertEquals(2_000, RequestDeadline.current().budgetMillis());
+    }
+
+    @Test
+    void preHandle_HeaderShorterThanBudget_ShortensDeadline() throws Exception {
+        request.addHeader(DeadlineInterceptor.TIMEOUT_HEADER, "250");
+
+        interceptor.preHandle(request, response, handler("annotated"));
+
+        assertEquals(250, RequestDeadline.current().budgetMillis());
+    }
+
+    @Test
+    void preHandle_HeaderLongerThanBudget_CannotExtendDeadline() throws Exception {
+        request.addHeader(DeadlineInterceptor.TIMEOUT_HEADER, "60000");
+
+        interceptor.preHandle(request, response, handler("annotated"));
+
+        assertEquals(2_000, RequestDeadline.current().budgetMillis());
+    }
+
+    @Test
+    void preHandle_MalformedHeader_ThrowsBadRequest() throws Exception {
+        request.addHeader(DeadlineInterceptor.TIMEOUT_HEADER, "soon");
+        HandlerMethod handler = handler("annotated");
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> interceptor.preHandle(request, response, handler));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void preHandle_AsyncDispatch_KeepsOriginalDeadline() throws Exception {
+        interceptor.preHandle(request, response, handler("annotated"));
+        RequestDeadline first = RequestDeadline.current();
+        interceptor.afterConcurrentHandlingStarted(request, response, handler("annotated"));
+        assertNull(RequestDeadline.current());
+
+        interceptor.preHandle(request, response, handler("annotated"));
+
+        assertSame(first, RequestDeadline.current());
+    }
+
+    @Test
+    void handleError_ClientDisconnected_CancelsRegisteredWorkAndCountsOnce() throws Exception {
+        interceptor.preHandle(request, response, handler("annotated"));
+        AtomicInteger cancelled = new AtomicInteger();
+        RequestDeadline.current().register("query", cancelled::incrementAndGet);
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+
+        interceptor.handleError(webRequest, new DeferredResult<>(), new IOException("Broken pipe"));
+        interceptor.handleError(webRequest, new DeferredResult<>(), new IOException("Broken pipe"));
+
+        assertEquals(1, cancelled.get());
+        assertEquals(1.0, registry.counter("lab5.requests.deadline.cancelled", "endpoint", "GET /api/products").count());
+    }
+
+    @Test
+    void register_AfterCancel_RunsCancellerImmediately() {
+        RequestDeadline deadline = new RequestDeadline("GET /api/products", 1_000);
+        deadline.cancel();
+        AtomicInteger cancelled = new AtomicInteger();
+
+        deadline.register("query", cancelled::incrementAndGet);
+
+        assertEquals(1, cancelled.get());
+    }
+
+    @Test
+    void taskRejected_SaturatedExecutor_AnswersServiceUnavailable() {
+        DeadlineExceptionHandler handler = new DeadlineExceptionHandler(new DeadlineMetrics(registry));
+
+        ProblemDetail problem = handler.taskRejected(new TaskRejectedException("queue full"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), problem.getStatus());
+        assertEquals(1.0, registry.counter("lab5.requests.rejected").count());
+    }
+
+    private HandlerMethod handler(String method) throws NoSuchMethodException {
+        return new HandlerMethod(new Endpoints(), Endpoints.class.getMethod(method));
+    }
+
+    public static class Endpoints {
+
+        public void unannotated() {
+        }
+
+        @Deadline("${test.budget-ms}")
+        public void annotated() {
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.lab5.models.IdempotencyRecord;
+import org.example.lab5.models.Product;
+import org.example.lab5.repositories.IdempotencyRecordRepository;
+import org.example.lab5.services.IdempotencyService;
+import org.example.lab5.tenancy.TenantContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository recordRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void execute_SameKeyTwice_ExecutesOnce() {
+        IdempotencyService service = inMemory(100);
+        AtomicInteger executions = new AtomicInteger();
+
+        Long first = service.execute("key-1", product("Laptop"), () -> (long) executions.incrementAndGet());
+        Long second = service.execute("key-1", product("Laptop"), () -> (long) executions.incrementAndGet());
+
+        assertEquals(1L, first);
+        assertEquals(1L, second);
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_NoKey_ExecutesEveryTime() {
+        IdempotencyService service = inMemory(100);
+        AtomicInteger executions = new AtomicInteger();
+
+        service.execute(null, product("Laptop"), () -> (long) executions.incrementAndGet());
+        service.execute(" ", product("Laptop"), () -> (long) executions.incrementAndGet());
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void execute_KeyReusedForDifferentRequest_ThrowsUnprocessableEntity() {
+        IdempotencyService service = inMemory(100);
+        service.execute("key-1", product("Laptop"), () -> 1L);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> service.execute("key-1", product("Phone"), () -> 2L));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatusCode());
+    }
+
+    @Test
+    void execute_FailedAttempt_AllowsRetry() {
+        IdempotencyService service = inMemory(100);
+
+        assertThrows(IllegalStateException.class, () -> service.execute("key-1", product("Laptop"), () -> {
+            throw new IllegalStateException("DB Error");
+        }));
+        Long result = service.execute("key-1", product("Laptop"), () -> 7L);
+
+        assertEquals(7L, result);
+    }
+
+    @Test
+    void execute_ConcurrentDuplicates_SecondWaitsForFirst() throws Exception {
+        IdempotencyService service = inMemory(100);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Long> first = executor.submit(() -> service.execute("key-1", product("Laptop"), () -> {
+                started.countDown();
+                await(release);
+                return (long) executions.incrementAndGet();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<Long> second = executor.submit(() -> service.execute("key-1", product("Laptop"),
+                    () -> (long) executions.incrementAndGet()));
+
+            Thread.sleep(100);
+            assertFalse(second.isDone());
+            release.countDown();
+
+            assertEquals(1L, first.get(5, TimeUnit.SECONDS));
+            assertEquals(1L, second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_MoreKeysThanCapacity_EvictsOldestResults() {
+        IdempotencyService service = inMemory(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        service.execute("key-1", product("Laptop"), () -> (long) executions.incrementAndGet());
+        service.execute("key-2", product("Laptop"), () -> (long) executions.incrementAndGet());
+        service.execute("key-1", product("Laptop"), () -> (long) executions.incrementAndGet());
+
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    void execute_DatabaseStore_KeyClaimedElsewhere_ReturnsStoredResult() {
+        IdempotencyService service = new IdempotencyService(recordRepository, objectMapper, "database", 60_000, 100, 1_000, 30_000, 2);
+        IdempotencyRecord pending = record(null);
+        IdempotencyRecord completed = record("42");
+        when(recordRepository.findById("key-1"))
+                .thenReturn(Optional.of(pending), Optional.of(pending), Optional.of(completed));
+        when(recordRepository.claim(eq("key-1"), anyString(), any(Instant.class), any(Instant.class), any(Instant.class))).thenAnswer(invocation -> {
+            completed.setFingerprint(invocation.getArgument(1));
+            return 0;
+        });
+
+        Long result = service.execute("key-1", product("Laptop"), () -> fail("must not execute"));
+
+        assertEquals(42L, result);
+        verify(recordRepository, never()).save(any());
+    }
+
+    @Test
+    void execute_DatabaseStore_ClaimedKey_StoresResult() {
+        IdempotencyService service = new IdempotencyService(recordRepository, objectMapper, "database", 60_000, 100, 1_000, 30_000, 2);
+        when(recordRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(recordRepository.claim(eq("key-1"), anyString(), any(Instant.class), any(Instant.class), any(Instant.class))).thenReturn(1);
+
+        Long result = service.execute("key-1", product("Laptop"), () -> 5L);
+
+        assertEquals(5L, result);
+        verify(recordRepository).save(argThat(record -> "5".equals(record.getResponse())));
+    }
+
+    @Test
+    void execute_DatabaseStore_PendingPastLease_TakesOverKey() {
+        IdempotencyService service = new IdempotencyService(recordRepository, objectMapper, "database", 60_000, 100, 1_000, 10, 2);
+        IdempotencyRecord abandoned = record(null);
+        abandoned.setCreatedAt(Instant.now().minusSeconds(1));
+        when(recordRepository.findById("key-1")).thenReturn(Optional.of(abandoned));
+        when(recordRepository.claim(eq("key-1"), anyString(), any(Instant.class), any(Instant.class), any(Instant.class)))
+                .thenReturn(0, 1);
+
+        Long result = service.execute("key-1", product("Laptop"), () -> 7L);
+
+        assertEquals(7L, result);
+        verify(recordRepository, times(2))
+                .claim(eq("key-1"), anyString(), any(Instant.class), any(Instant.class), any(Instant.class));
+        verify(recordRepository).save(argThat(record -> "7".equals(record.getResponse())));
+    }
+
+    @Test
+    void execute_SameFieldsInNewInstance_MatchesFingerprint() {
+        IdempotencyService service = inMemory(100);
+        Product first = product("Laptop");
+        Product retry = product("Laptop");
+        retry.setTenantId("acme");
+
+        service.execute("key-1", first, () -> 1L);
+
+        assertEquals(1L, service.execute("key-1", retry, () -> fail("must not execute")));
+    }
+
+    @Test
+    void execute_DatabaseStore_KeyTooLongForColumn_StoresHashedKey() {
+        IdempotencyService service = new IdempotencyService(recordRepository, objectMapper, "database", 60_000, 100, 1_000, 30_000, 2);
+        String key = "k".repeat(250);
+        when(recordRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(recordRepository.claim(anyString(), anyString(), any(Instant.class), any(Instant.class), any(Instant.class))).thenReturn(1);
+
+        TenantContext.run("acme", () -> service.execute(key, product("Laptop"), () -> 5L));
+
+        verify(recordRepository).save(argThat(record -> record.getIdempotencyKey().length() <= 255
+                && record.getIdempotencyKey().startsWith("#")));
+    }
+
+    @Test
+    void evictExpired_DatabaseStore_DeletesInBatchesUntilDone() {
+        IdempotencyService service = new IdempotencyService(recordRepository, objectMapper, "database", 60_000, 100, 1_000, 30_000, 2);
+        when(recordRepository.deleteExpired(any(Instant.class), eq(2))).thenReturn(2, 2, 1);
+
+        service.evictExpired();
+
+        verify(recordRepository, times(3)).deleteExpired(any(Instant.class), eq(2));
+    }
+
+    private IdempotencyService inMemory(int maxEntries) {
+        return new IdempotencyService(recordRepository, objectMapper, "memory", 60_000, maxEntries, 5_000, 30_000, 2);
+    }
+
+    private IdempotencyRecord record(String response) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey("key-1");
+        record.setResponse(response);
+        record.setCreatedAt(Instant.now());
+        return record;
+    }
+
+    private static Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(100L);
+        product.setQuantity(1L);
+        return product;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import org.example.lab5.models.Product;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.services.ProductService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares write and read throughput of the default configuration with the
+ * {@code perf} profile against the database configured in
+ * {@code application.properties}. The profile must beat the default on the
+ * two workloads it targets:
+ * <ul>
+ *     <li>batched writes ({@code saveAll} in one transaction), where JDBC
+ *     batching, insert ordering and the driver's insert rewriting apply, by
+ *     {@code benchmark.minBatchSpeedup};</li>
+ *     <li>id lookups with IN lists of varying length, where padded IN lists
+ *     keep the number of distinct statements within the driver's statement
+ *     cache and server-side preparation starts with the first execution, by
+ *     {@code benchmark.minLookupSpeedup}.</li>
+ * </ul>
+ * Single-row creates and page reads are not targeted and only must not
+ * regress. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+public class JdbcTuningBenchmarkTests {
+
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 8);
+
+    private static final int CREATES = Integer.getInteger("benchmark.creates", 20_000);
+
+    private static final int READS = Integer.getInteger("benchmark.reads", 5_000);
+
+    private static final int PAGE_SIZE = Integer.getInteger("benchmark.pageSize", 200);
+
+    private static final int BATCHES = Integer.getInteger("benchmark.batches", 200);
+
+    private static final int BATCH_SIZE = Integer.getInteger("benchmark.batchSize", 500);
+
+    private static final int LOOKUPS = Integer.getInteger("benchmark.lookups", 5_000);
+
+    private static final int MAX_IN_LIST = Integer.getInteger("benchmark.maxInList", 300);
+
+    @Test
+    void perfProfile_TargetedWorkloads_OutperformDefaultProfile() throws Exception {
+        double[] defaults = measure();
+        double[] tuned = measure("perf");
+
+        System.out.printf("jdbc-tuning: create default=%.0f ops/s perf=%.0f ops/s (x%.2f)%n",
+                defaults[0], tuned[0], tuned[0] / defaults[0]);
+        System.out.printf("jdbc-tuning: findAll default=%.0f ops/s perf=%.0f ops/s (x%.2f)%n",
+                defaults[1], tuned[1], tuned[1] / defaults[1]);
+        System.out.printf("jdbc-tuning: saveAll default=%.0f rows/s perf=%.0f rows/s (x%.2f)%n",
+                defaults[2], tuned[2], tuned[2] / defaults[2]);
+        System.out.printf("jdbc-tuning: findAllById default=%.0f ops/s perf=%.0f ops/s (x%.2f)%n",
+                defaults[3], tuned[3], tuned[3] / defaults[3]);
+
+        double minBatchSpeedup = Double.parseDouble(System.getProperty("benchmark.minBatchSpeedup", "1.5"));
+        assertTrue(tuned[2] >= defaults[2] * minBatchSpeedup,
+                "perf profile should speed up batched writes by " + minBatchSpeedup + "x, got "
+                        + tuned[2] / defaults[2] + "x");
+        double minLookupSpeedup = Double.parseDouble(System.getProperty("benchmark.minLookupSpeedup", "1.2"));
+        assertTrue(tuned[3] >= defaults[3] * minLookupSpeedup,
+                "perf profile should speed up IN-list lookups by " + minLookupSpeedup + "x, got "
+                        + tuned[3] / defaults[3] + "x");
+        double tolerance = Double.parseDouble(System.getProperty("benchmark.tolerance", "0.9"));
+        assertTrue(tuned[0] >= defaults[0] * tolerance, "perf profile regressed create throughput");
+        assertTrue(tuned[1] >= defaults[1] * tolerance, "perf profile regressed findAll throughput");
+    }
+
+    private static double[] measure(String... profiles) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Lab5Application.class)
+                .profiles(profiles)
+                .web(WebApplicationType.NONE)
+                .properties("lab5.products.search.rebuild-on-startup=false")
+                .run()) {
+            ProductService productService = context.getBean(ProductService.class);
+            ProductRepository productRepository = context.getBean(ProductRepository.class);
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            List<Long> createdIds = Collections.synchronizedList(new ArrayList<>(CREATES * 2));
+            try {
+                run(executor, CREATES / 10, i -> createdIds.add(productService.create(product(i))));
+                long start = System.nanoTime();
+                run(executor, CREATES, i -> createdIds.add(productService.create(product(i))));
+                double createsPerSecond = CREATES / seconds(start);
+
+                run(executor, READS / 10, i -> productService.findAll(i % 50, PAGE_SIZE));
+                start = System.nanoTime();
+                run(executor, READS, i -> productService.findAll(i % 50, PAGE_SIZE));
+                double readsPerSecond = READS / seconds(start);
+
+                run(executor, BATCHES / 10, i -> createdIds.addAll(saveBatch(productRepository, i)));
+                start = System.nanoTime();
+                run(executor, BATCHES, i -> createdIds.addAll(saveBatch(productRepository, i)));
+                double batchedRowsPerSecond = (double) BATCHES * BATCH_SIZE / seconds(start);
+
+                Long[] ids = createdIds.toArray(new Long[0]);
+                run(executor, LOOKUPS / 10, i -> productRepository.findAllById(lookupIds(ids, i)));
+                start = System.nanoTime();
+                run(executor, LOOKUPS, i -> productRepository.findAllById(lookupIds(ids, i)));
+                double lookupsPerSecond = LOOKUPS / seconds(start);
+
+                return new double[]{createsPerSecond, readsPerSecond, batchedRowsPerSecond, lookupsPerSecond};
+            } finally {
+                executor.shutdownNow();
+                productRepository.deleteAllByIdInBatch(createdIds);
+            }
+        }
+    }
+
+    private static void run(ExecutorService executor, int operations, IntConsumer operation)
+            throws Exception {
+        List<Future<?>> futures = new ArrayList<>(THREADS);
+        int perThread = operations / THREADS;
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t * perThread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    operation.accept(offset + i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private static List<Long> saveBatch(ProductRepository productRepository, int batch) {
+        List<Product> products = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            products.add(product(batch * BATCH_SIZE + i));
+        }
+        List<Long> ids = new ArrayList<>(BATCH_SIZE);
+        for (Product saved : productRepository.saveAll(products)) {
+            ids.add(saved.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * A run of {@code 1..MAX_IN_LIST} consecutive ids, so nearly every call
+     * has an IN list of a different length than the previous one.
+     */
+    private static List<Long> lookupIds(Long[] ids, int lookup) {
+        int size = 1 + (int) ((lookup * 7919L) % MAX_IN_LIST);
+        int from = (int) ((lookup * 104_729L) % Math.max(1, ids.length - size));
+        return Arrays.asList(ids).subList(from, Math.min(ids.length, from + size));
+    }
+
+    private static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000_000.0;
+    }
+
+    private static Product product(int i) {
+        Product product = new Product();
+        product.setName("Benchmark product " + i);
+        product.setPrice(100L + i % 1000);
+        product.setQuantity((long) (i % 50));
+        return product;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import org.example.lab5.models.Product;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.services.ProductPatchService;
+import org.example.lab5.services.ProductService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares a price-only feed applied through {@code PUT} (full entity merge)
+ * and {@code PATCH} (single partial UPDATE): SQL statements and bytes sent to
+ * the database, and WAL bytes generated by Postgres. Run with
+ * {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "org.example.lab5.PartialUpdateBenchmarkTests$CapturingStatementInspector",
+        "lab5.products.search.rebuild-on-startup=false"
+})
+public class PartialUpdateBenchmarkTests {
+
+    private static final int UPDATES = Integer.getInteger("benchmark.updates", 5_000);
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductPatchService productPatchService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void priceOnlyFeed_Patch_SendsLessSqlAndWritesLessWal() {
+        List<Product> products = new ArrayList<>(UPDATES);
+        for (int i = 0; i < UPDATES; i++) {
+            Product product = new Product();
+            product.setName("Feed product with a reasonably long descriptive name " + i);
+            product.setPrice(100L);
+            product.setQuantity(10L);
+            products.add(productRepository.save(product));
+        }
+        try {
+            long[] put = measure(() -> {
+                for (Product product : products) {
+                    product.setPrice(product.getPrice() + 1);
+                    productService.update(product);
+                }
+            });
+            long[] patch = measure(() -> {
+                for (Product product : products) {
+                    productPatchService.patch(product.getId(), Map.of("price", product.getPrice() + 1));
+                }
+            });
+
+            System.out.printf("partial-update: PUT   statements=%d sqlBytes=%d walBytes=%d (per update: %d B SQL, %d B WAL)%n",
+                    put[0], put[1], put[2], put[1] / UPDATES, put[2] / UPDATES);
+            System.out.printf("partial-update: PATCH statements=%d sqlBytes=%d walBytes=%d (per update: %d B SQL, %d B WAL)%n",
+                    patch[0], patch[1], patch[2], patch[1] / UPDATES, patch[2] / UPDATES);
+
+            assertTrue(patch[1] < put[1], "PATCH should send fewer SQL bytes than PUT");
+        } finally {
+            productRepository.deleteAllInBatch(products);
+        }
+    }
+
+    private long[] measure(Runnable feed) {
+        CapturingStatementInspector.reset();
+        String walBefore = jdbcTemplate.queryForObject("select pg_current_wal_insert_lsn()::text", String.class);
+        feed.run();
+        Long walBytes = jdbcTemplate.queryForObject(
+                "select pg_wal_lsn_diff(pg_current_wal_insert_lsn(), ?::pg_lsn)::bigint", Long.class, walBefore);
+        return new long[]{
+                CapturingStatementInspector.STATEMENTS.get(),
+                CapturingStatementInspector.BYTES.get(),
+                walBytes == null ? 0 : walBytes};
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final AtomicLong STATEMENTS = new AtomicLong();
+
+        static final AtomicLong BYTES = new AtomicLong();
+
+        static void reset() {
+            STATEMENTS.set(0);
+            BYTES.set(0);
+        }
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.incrementAndGet();
+            BYTES.addAndGet(sql.length());
+            return sql;
+        }
+    }
+}
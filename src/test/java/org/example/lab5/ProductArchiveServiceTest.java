@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import org.example.lab5.models.ProductChangedEvent;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.services.ProductArchiveService;
+import org.example.lab5.tenancy.TenantRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductArchiveServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final TenantRegistry tenants = new TenantRegistry(List.of("default"));
+
+    @Test
+    void archive_MovesCandidatesInBatches() {
+        ProductArchiveService service = new ProductArchiveService(productRepository, eventPublisher, tenants, 2, 10);
+        when(productRepository.findArchivableIds("default", 2)).thenReturn(List.of(1L, 2L), List.of(3L));
+        when(productRepository.archiveByIds(any(), any(Instant.class))).thenReturn(2, 1);
+
+        int archived = service.archive();
+
+        assertEquals(3, archived);
+        verify(productRepository).archiveByIds(eq(List.of(1L, 2L)), any(Instant.class));
+        verify(productRepository).archiveByIds(eq(List.of(3L)), any(Instant.class));
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.ARCHIVED, 3L, null));
+    }
+
+    @Test
+    void archive_NoCandidates_DoesNothing() {
+        ProductArchiveService service = new ProductArchiveService(productRepository, eventPublisher, tenants, 2, 10);
+        when(productRepository.findArchivableIds("default", 2)).thenReturn(List.of());
+
+        assertEquals(0, service.archive());
+        verify(productRepository, never()).archiveByIds(any(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void archive_StopsAtMaxBatchesPerRun() {
+        ProductArchiveService service = new ProductArchiveService(productRepository, eventPublisher, tenants, 1, 2);
+        when(productRepository.findArchivableIds("default", 1)).thenReturn(List.of(1L), List.of(2L), List.of(3L));
+        when(productRepository.archiveByIds(any(), any(Instant.class))).thenReturn(1);
+
+        assertEquals(2, service.archive());
+        verify(productRepository, times(2)).findArchivableIds("default", 1);
+    }
+
+    @Test
+    void archive_SeveralTenants_ArchivesEachUnderItsOwnTenant() {
+        TenantRegistry registry = new TenantRegistry(List.of("acme"));
+        ProductArchiveService service = new ProductArchiveService(productRepository, eventPublisher, registry, 2, 10);
+        when(productRepository.findArchivableIds("default", 2)).thenReturn(List.of(1L));
+        when(productRepository.findArchivableIds("acme", 2)).thenReturn(List.of(7L, 8L), List.of());
+        when(productRepository.archiveByIds(any(), any(Instant.class))).thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).size());
+
+        assertEquals(3, service.archive());
+        verify(productRepository).findArchivableIds("default", 2);
+        verify(productRepository, times(2)).findArchivableIds("acme", 2);
+    }
+}
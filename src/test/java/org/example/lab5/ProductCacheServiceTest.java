@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.lab5.cache.InMemoryRemoteCache;
+import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductChangedEvent;
+import org.example.lab5.services.ProductCacheService;
+import org.example.lab5.tenancy.TenantContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductCacheServiceTest {
+
+    private ProductCacheService productCacheService;
+
+    private Product cable;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        productCacheService = new ProductCacheService(new InMemoryRemoteCache(Duration.ofMinutes(10)),
+                new SimpleMeterRegistry(), true, 100, 60_000L, 600_000L, 2_000L);
+
+        cable = new Product();
+        cable.setId(1L);
+        cable.setName("Cable");
+        cable.setPrice(10L);
+        cable.setQuantity(null);
+        cable.setTenantId("default");
+        cable.setArchived(true);
+        cable.setArchivedAt(Instant.parse("2025-03-01T10:15:30.123456Z"));
+    }
+
+    @Test
+    void findById_Hit_ReturnsEqualCopy() {
+        productCacheService.findById(1L, this::load);
+
+        Product cached = productCacheService.findById(1L, this::load);
+
+        assertEquals(cable, cached);
+        assertNotSame(cable, cached);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void onProductChanged_Update_ReloadsProduct() {
+        productCacheService.findById(1L, this::load);
+
+        productCacheService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 1L, cable));
+        productCacheService.findById(1L, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void onProductChanged_OtherTenant_KeepsEntry() {
+        productCacheService.findById(1L, this::load);
+        TenantContext.run("acme", () -> productCacheService.findById(1L, this::load));
+
+        TenantContext.run("acme", () -> productCacheService.onProductChanged(
+                new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 1L, null)));
+        productCacheService.findById(1L, this::load);
+        TenantContext.run("acme", () -> productCacheService.findById(1L, this::load));
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void findById_OtherTenantsEntries_DoNotEvictFromNearCache() {
+        ProductCacheService oneEntryPerTenant = new ProductCacheService(new InMemoryRemoteCache(Duration.ofMinutes(10)),
+                new SimpleMeterRegistry(), true, 1, 60_000L, 600_000L, 2_000L);
+        oneEntryPerTenant.findById(1L, this::load);
+        TenantContext.run("acme", () -> oneEntryPerTenant.findById(2L, this::load));
+
+        oneEntryPerTenant.findById(1L, this::load);
+
+        assertEquals(0.5, oneEntryPerTenant.l1HitRatio());
+    }
+
+    private Product load() {
+        loads.incrementAndGet();
+        return cable;
+    }
+}
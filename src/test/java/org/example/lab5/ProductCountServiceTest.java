@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductChangedEvent;
+import org.example.lab5.models.TotalCountMode;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.services.ProductCountService;
+import org.example.lab5.tenancy.TenantContext;
+import org.example.lab5.tenancy.TenantRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductCountServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private TenantRegistry tenantRegistry;
+
+    @InjectMocks
+    private ProductCountService productCountService;
+
+    @Test
+    void count_Exact_AlwaysQueriesRepository() {
+        when(productRepository.countByArchivedFalse()).thenReturn(5L, 6L);
+
+        assertEquals(5L, productCountService.count(TotalCountMode.EXACT));
+        assertEquals(6L, productCountService.count(TotalCountMode.EXACT));
+        verify(productRepository, times(2)).countByArchivedFalse();
+    }
+
+    @Test
+    void count_Cached_QueriesRepositoryOnlyOnce() {
+        when(productRepository.countByArchivedFalse()).thenReturn(5L);
+
+        assertEquals(5L, productCountService.count(TotalCountMode.CACHED));
+        assertEquals(5L, productCountService.count(TotalCountMode.CACHED));
+        verify(productRepository, times(1)).countByArchivedFalse();
+    }
+
+    @Test
+    void count_Cached_TracksCreatesAndDeletes() {
+        when(productRepository.countByArchivedFalse()).thenReturn(5L);
+        productCountService.count(TotalCountMode.CACHED);
+
+        productCountService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, 10L, new Product()));
+        productCountService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, 11L, new Product()));
+        productCountService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 10L, null));
+
+        assertEquals(6L, productCountService.count(TotalCountMode.CACHED));
+        verify(productRepository, times(1)).countByArchivedFalse();
+    }
+
+    @Test
+    void count_Cached_IgnoresDeletionOfArchivedProduct() {
+        when(productRepository.countByArchivedFalse()).thenReturn(5L);
+        productCountService.count(TotalCountMode.CACHED);
+
+        productCountService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 10L, null, null, true));
+
+        assertEquals(5L, productCountService.count(TotalCountMode.CACHED));
+    }
+
+    @Test
+    void onProductChanged_BeforeFirstCount_DoesNotQueryRepository() {
+        productCountService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, 1L, new Product()));
+        productCountService.refreshCachedCount();
+
+        verify(productRepository, never()).countByArchivedFalse();
+    }
+
+    @Test
+    void count_Approximate_UsesPlannerEstimate() {
+        when(productRepository.estimateCount()).thenReturn(1_000_000L);
+
+        assertEquals(1_000_000L, productCountService.count(TotalCountMode.APPROXIMATE));
+        verify(productRepository, never()).countByArchivedFalse();
+    }
+
+    @Test
+    void count_ApproximateWithoutStatistics_FallsBackToCachedCount() {
+        when(productRepository.estimateCount()).thenReturn(-1L);
+        when(productRepository.countByArchivedFalse()).thenReturn(3L);
+
+        assertEquals(3L, productCountService.count(TotalCountMode.APPROXIMATE));
+    }
+
+    @Test
+    void count_NullMode_ThrowsNullPointerException() {
+        assertThrows(NullPointerException.class, () -> productCountService.count(null));
+    }
+
+    @Test
+    void count_Cached_KeptPerTenant() {
+        when(productRepository.countByArchivedFalse()).thenReturn(5L, 2L);
+        productCountService.count(TotalCountMode.CACHED);
+        TenantContext.run("acme", () -> productCountService.count(TotalCountMode.CACHED));
+
+        TenantContext.run("acme", () -> productCountService.onProductChanged(
+                new ProductChangedEvent(ProductChangedEvent.Type.CREATED, 10L, new Product())));
+
+        assertEquals(5L, productCountService.count(TotalCountMode.CACHED));
+        assertEquals(3L, TenantContext.call("acme", () -> productCountService.count(TotalCountMode.CACHED)));
+        verify(productRepository, times(2)).countByArchivedFalse();
+    }
+
+    @Test
+    void count_ApproximateWithSeveralTenants_UsesCachedCount() {
+        when(tenantRegistry.isMultiTenant()).thenReturn(true);
+        when(productRepository.countByArchivedFalse()).thenReturn(3L);
+
+        assertEquals(3L, productCountService.count(TotalCountMode.APPROXIMATE));
+        verify(productRepository, never()).estimateCount();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+
+package org.example.lab5;
+
+import org.example.lab5.models.Product;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.services.ProductPatchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class ProductPatchServiceTests {
+    @Autowired
+    private ProductPatchService underTest;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Product laptop;
+
+    @BeforeEach
+    void setUp() {
+        laptop = new Product();
+        laptop.setName("Laptop");
+        laptop.setPrice(999L);
+        laptop.setQuantity(10L);
+        laptop = productRepository.save(laptop);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void shouldUpdateOnlySuppliedColumns() {
+        Product patched = underTest.patch(laptop.getId(), Map.of("price", 899));
+
+        assertEquals(899L, patched.getPrice());
+        assertEquals("Laptop", patched.getName());
+        assertEquals(10L, patched.getQuantity());
+    }
+
+    @Test
+    void shouldClearColumnPatchedWithNull() {
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("quantity", null);
+
+        Product patched = underTest.patch(laptop.getId(), patch);
+
+        assertNull(patched.getQuantity());
+        assertEquals(999L, patched.getPrice());
+    }
+
+    @Test
+    void shouldReturnProductUnchangedForEmptyPatch() {
+        Product patched = underTest.patch(laptop.getId(), Map.of());
+
+        assertEquals(laptop.getName(), patched.getName());
+        assertEquals(laptop.getPrice(), patched.getPrice());
+    }
+
+    @Test
+    void shouldRejectUnknownField() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> underTest.patch(laptop.getId(), Map.of("id", 5)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void shouldRestoreArchivedProductWhenNoLongerDiscontinued() {
+        underTest.patch(laptop.getId(), Map.of("discontinued", true));
+        productRepository.archiveByIds(List.of(laptop.getId()), Instant.now());
+
+        Product patched = underTest.patch(laptop.getId(), Map.of("discontinued", false));
+
+        assertFalse(patched.isDiscontinued());
+        assertFalse(patched.isArchived());
+        assertNull(patched.getArchivedAt());
+    }
+
+    @Test
+    void shouldRejectValueOfWrongType() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> underTest.patch(laptop.getId(), Map.of("price", "cheap")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void shouldReturnNotFoundForMissingProduct() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> underTest.patch(laptop.getId() + 1_000_000, Map.of("price", 1)));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+    }
+}
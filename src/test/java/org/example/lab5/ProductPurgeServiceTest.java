@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.services.ProductPurgeService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductPurgeServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Test
+    void purge_RemovesBatchesUntilBatchIsNotFull() {
+        ProductPurgeService service = new ProductPurgeService(productRepository, 0, 100, 10, 0);
+        when(productRepository.purgeDeleted(any(Instant.class), eq(100))).thenReturn(100, 100, 42);
+
+        int purged = service.purge();
+
+        assertEquals(242, purged);
+        verify(productRepository, times(3)).purgeDeleted(any(Instant.class), eq(100));
+    }
+
+    @Test
+    void purge_StopsAtMaxBatchesPerRun() {
+        ProductPurgeService service = new ProductPurgeService(productRepository, 0, 100, 2, 0);
+        when(productRepository.purgeDeleted(any(Instant.class), eq(100))).thenReturn(100);
+
+        int purged = service.purge();
+
+        assertEquals(200, purged);
+        verify(productRepository, times(2)).purgeDeleted(any(Instant.class), eq(100));
+    }
+
+    @Test
+    void purge_OnlyRemovesTombstonesOlderThanRetention() {
+        ProductPurgeService service = new ProductPurgeService(productRepository, 3_600_000, 100, 1, 0);
+        when(productRepository.purgeDeleted(any(Instant.class), eq(100))).thenReturn(0);
+
+        service.purge();
+
+        verify(productRepository).purgeDeleted(
+                argThat(cutoff -> cutoff.isBefore(Instant.now().minusSeconds(3500))), eq(100));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductIdRange;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.services.IdempotencyService;
+import org.example.lab5.services.ProductCacheService;
+import org.example.lab5.services.ProductCountService;
+import org.example.lab5.services.ProductService;
+import org.example.lab5.services.ProductSnapshotService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures how {@link ProductService#aggregate} scales with the number of
+ * workers. The repository is simulated: every keyset batch costs a fixed
+ * round trip, and the accumulator does a little CPU work per product, so the
+ * numbers reflect the sharding and fork-join overhead rather than a database.
+ * Run with {@code ./gradlew benchmark -Dbenchmark.products=2000000}.
+ */
+@Tag("benchmark")
+public class ProductScanBenchmarkTests {
+
+    private static final int PRODUCTS = Integer.getInteger("benchmark.products", 2_000_000);
+
+    private static final long BATCH_LATENCY_MICROS = Long.getLong("benchmark.batchLatencyMicros", 500);
+
+    private static final int MAX_PARALLELISM = Integer.getInteger(
+            "benchmark.maxParallelism", Runtime.getRuntime().availableProcessors());
+
+    @Test
+    void aggregate_MoreWorkers_ScalesNearLinearly() {
+        ProductService service = productService();
+        long expected = checksum(service, 1);
+
+        double baselineMillis = 0;
+        double speedup = 1;
+        for (int parallelism = 1; parallelism <= MAX_PARALLELISM; parallelism <<= 1) {
+            checksum(service, parallelism);
+            long start = System.nanoTime();
+            long result = checksum(service, parallelism);
+            double millis = (System.nanoTime() - start) / 1e6;
+            assertEquals(expected, result);
+            if (parallelism == 1) {
+                baselineMillis = millis;
+            }
+            speedup = baselineMillis / millis;
+            System.out.printf("scan: parallelism=%d time=%.0f ms speedup=%.2fx efficiency=%.0f%%%n",
+                    parallelism, millis, speedup, 100 * speedup / parallelism);
+        }
+
+        int measured = Integer.highestOneBit(MAX_PARALLELISM);
+        assertTrue(speedup >= measured * 0.6, "expected near-linear scaling, got " + speedup + "x on " + measured);
+    }
+
+    private static long checksum(ProductService service, int parallelism) {
+        return service.aggregate(parallelism,
+                () -> new long[1],
+                (acc, product) -> acc[0] += Long.hashCode(product.getPrice() * 31 + product.getQuantity()),
+                (left, right) -> new long[]{left[0] + right[0]})[0];
+    }
+
+    private static ProductService productService() {
+        ProductRepository repository = mock(ProductRepository.class);
+        ProductIdRange range = mock(ProductIdRange.class);
+        when(range.getMinId()).thenReturn(1L);
+        when(range.getMaxId()).thenReturn((long) PRODUCTS);
+        when(repository.findIdRange()).thenReturn(range);
+        when(repository.findByArchivedFalseAndIdGreaterThanAndIdLessThanOrderByIdAsc(any(), any(), any(Limit.class)))
+                .thenAnswer(invocation -> {
+                    long after = Math.max(0, invocation.<Long>getArgument(0));
+                    long upperBound = Math.min(PRODUCTS + 1L, invocation.<Long>getArgument(1));
+                    int limit = invocation.<Limit>getArgument(2).max();
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(BATCH_LATENCY_MICROS));
+                    List<Product> batch = new ArrayList<>(limit);
+                    for (long id = after + 1; id < upperBound && batch.size() < limit; id++) {
+                        batch.add(product(id));
+                    }
+                    return batch;
+                });
+        return new ProductService(repository, mock(ApplicationEventPublisher.class),
+                mock(IdempotencyService.class), mock(ProductSnapshotService.class), mock(ProductCacheService.class),
+                mock(ProductCountService.class));
+    }
+
+    private static Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("product-" + id);
+        product.setPrice(id % 10_000);
+        product.setQuantity(id % 100);
+        return product;
+    }
+}
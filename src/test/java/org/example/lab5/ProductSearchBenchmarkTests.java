@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductChangedEvent;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.services.ProductSearchService;
+import org.example.lab5.tenancy.TenantRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures typeahead latency of the in-memory index. Run with
+ * {@code ./gradlew benchmark -Dbenchmark.products=1000000}.
+ */
+@Tag("benchmark")
+public class ProductSearchBenchmarkTests {
+
+    private static final String[] WORDS = {
+            "laptop", "phone", "tablet", "monitor", "keyboard", "mouse", "headset", "camera",
+            "speaker", "charger", "cable", "stand", "gaming", "wireless", "pro", "mini",
+            "ultra", "smart", "watch", "desk", "lamp", "chair", "router", "drive"
+    };
+
+    @Test
+    void prefixQueries_MillionProducts_P99UnderTenMillis() {
+        int products = Integer.getInteger("benchmark.products", 1_000_000);
+        int queries = Integer.getInteger("benchmark.queries", 100_000);
+        Random random = new Random(42);
+        ProductSearchService service = new ProductSearchService(
+                mock(ProductRepository.class), new TenantRegistry(List.of()), 1000, false);
+
+        long indexStart = System.nanoTime();
+        for (long id = 1; id <= products; id++) {
+            Product product = new Product();
+            product.setId(id);
+            product.setName(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + id);
+            service.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, id, product));
+        }
+        long indexMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - indexStart);
+
+        long[] latencies = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            String query = i % 2 == 0
+                    ? word.substring(0, 1 + random.nextInt(word.length()))
+                    : word + " " + WORDS[random.nextInt(WORDS.length)].substring(0, 2);
+            long start = System.nanoTime();
+            service.searchIds(query, 20);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+
+        double p50 = latencies[queries / 2] / 1_000_000.0;
+        double p99 = latencies[(int) (queries * 0.99)] / 1_000_000.0;
+        System.out.printf("search: products=%d indexMs=%d p50=%.3fms p99=%.3fms%n", products, indexMillis, p50, p99);
+
+        assertTrue(p99 < 10.0, "p99 latency " + p99 + "ms exceeds 10ms");
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductChangedEvent;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.services.ProductSearchService;
+import org.example.lab5.tenancy.TenantContext;
+import org.example.lab5.tenancy.TenantRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductSearchServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSearchService productSearchService;
+
+    @BeforeEach
+    void setUp() {
+        productSearchService = new ProductSearchService(productRepository, new TenantRegistry(List.of("acme")), 2, false);
+        index(1L, "Gaming Laptop");
+        index(2L, "Laptop Stand");
+        index(3L, "Phone");
+    }
+
+    @Test
+    void searchIds_Prefix_ReturnsTypeaheadMatches() {
+        List<Long> result = productSearchService.searchIds("lap", 10);
+
+        assertEquals(List.of(1L, 2L), result.stream().sorted().toList());
+    }
+
+    @Test
+    void searchIds_IsCaseInsensitive() {
+        assertEquals(List.of(3L), productSearchService.searchIds("PHO", 10));
+    }
+
+    @Test
+    void searchIds_MultipleTerms_RequiresAllTerms() {
+        assertEquals(List.of(1L), productSearchService.searchIds("gaming lap", 10));
+        assertTrue(productSearchService.searchIds("phone lap", 10).isEmpty());
+    }
+
+    @Test
+    void searchIds_RespectsLimit() {
+        assertEquals(1, productSearchService.searchIds("laptop", 1).size());
+    }
+
+    @Test
+    void searchIds_BlankQuery_ReturnsEmptyList() {
+        assertTrue(productSearchService.searchIds("  ", 10).isEmpty());
+    }
+
+    @Test
+    void searchIds_NonPositiveLimit_ThrowsBadRequest() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> productSearchService.searchIds("lap", 0));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void searchIds_LimitAboveMaximum_IsCapped() {
+        for (long id = 10; id < 10 + ProductSearchService.MAX_LIMIT + 5; id++) {
+            index(id, "Cable " + id);
+        }
+
+        assertEquals(ProductSearchService.MAX_LIMIT, productSearchService.searchIds("cable", 1_000).size());
+    }
+
+    @Test
+    void onProductChanged_Update_ReplacesOldTokens() {
+        Product renamed = product(3L, "Smartwatch");
+        productSearchService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 3L, renamed));
+
+        assertTrue(productSearchService.searchIds("phone", 10).isEmpty());
+        assertEquals(List.of(3L), productSearchService.searchIds("smart", 10));
+    }
+
+    @Test
+    void onProductChanged_UpdateOfArchivedProduct_RemovesProduct() {
+        Product archived = product(1L, "Gaming Laptop");
+        archived.setArchived(true);
+
+        productSearchService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 1L, archived));
+
+        assertEquals(List.of(2L), productSearchService.searchIds("laptop", 10));
+    }
+
+    @Test
+    void onProductChanged_Delete_RemovesProduct() {
+        productSearchService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 1L, null));
+
+        assertEquals(List.of(2L), productSearchService.searchIds("laptop", 10));
+    }
+
+    @Test
+    void searchIds_OtherTenantsProducts_DoNotCountTowardsLimit() {
+        TenantContext.run("acme", () -> {
+            for (long id = 100; id < 110; id++) {
+                index(id, "Lap Desk " + id);
+            }
+        });
+
+        assertEquals(List.of(1L, 2L), productSearchService.searchIds("lap", 2).stream().sorted().toList());
+        assertEquals(2, TenantContext.call("acme", () -> productSearchService.searchIds("lap", 2)).size());
+        assertTrue(TenantContext.call("acme", () -> productSearchService.searchIds("phone", 10)).isEmpty());
+    }
+
+    @Test
+    void onProductChanged_OtherTenant_LeavesIndexAlone() {
+        TenantContext.run("acme", () -> productSearchService.onProductChanged(
+                new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 1L, null)));
+
+        assertEquals(List.of(1L, 2L), productSearchService.searchIds("laptop", 10).stream().sorted().toList());
+    }
+
+    @Test
+    void search_LoadsMatchesInIndexOrder() {
+        Product phone = product(3L, "Phone");
+        when(productRepository.findAllById(List.of(3L))).thenReturn(List.of(phone));
+
+        assertEquals(List.of(phone), productSearchService.search("phone", 10));
+    }
+
+    @Test
+    void rebuild_WalksTableInKeysetBatches() {
+        when(productRepository.findByArchivedFalseAndIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Limit.class)))
+                .thenReturn(List.of(product(10L, "Desk Lamp"), product(11L, "Desk Chair")));
+        when(productRepository.findByArchivedFalseAndIdGreaterThanOrderByIdAsc(eq(11L), any(Limit.class)))
+                .thenReturn(List.of(product(12L, "Monitor")));
+
+        int indexed = productSearchService.rebuild();
+
+        assertEquals(3, indexed);
+        assertTrue(productSearchService.searchIds("laptop", 10).isEmpty());
+        assertEquals(List.of(10L, 11L), productSearchService.searchIds("desk", 10).stream().sorted().toList());
+        verify(productRepository, times(2)).findByArchivedFalseAndIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class));
+    }
+
+    @Test
+    void rebuild_OnlyReplacesCurrentTenantsIndex() {
+        TenantContext.run("acme", () -> index(100L, "Laptop Bag"));
+        when(productRepository.findByArchivedFalseAndIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Limit.class)))
+                .thenReturn(List.of(product(10L, "Desk Lamp")));
+
+        productSearchService.rebuild();
+
+        assertTrue(productSearchService.searchIds("laptop", 10).isEmpty());
+        assertEquals(List.of(100L), TenantContext.call("acme", () -> productSearchService.searchIds("laptop", 10)));
+    }
+
+    @Test
+    void onApplicationReady_RebuildsEveryTenant() {
+        ProductSearchService startup = new ProductSearchService(
+                productRepository, new TenantRegistry(List.of("acme")), 2, true);
+        List<String> tenants = new ArrayList<>();
+        when(productRepository.findByArchivedFalseAndIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class)))
+                .thenAnswer(invocation -> {
+                    tenants.add(TenantContext.current());
+                    return List.of();
+                });
+
+        startup.onApplicationReady(null);
+
+        assertEquals(List.of(TenantContext.DEFAULT_TENANT, "acme"), tenants);
+    }
+
+    private void index(long id, String name) {
+        productSearchService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, id, product(id, name)));
+    }
+
+    private static Product product(long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductSerializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares bytes allocated and time per page written with Jackson's bean
+ * serializer and with {@link ProductSerializer}, the same figures JMH reports with
+ * {@code -prof gc} ({@code gc.alloc.rate.norm}). Allocation is read from the
+ * benchmark thread's allocation counter. Run with
+ * {@code ./gradlew benchmark -Dbenchmark.pageSize=1000}.
+ */
+@Tag("benchmark")
+public class ProductSerializerBenchmarkTests {
+
+    private static final int PAGE_SIZE = Integer.getInteger("benchmark.pageSize", 1_000);
+
+    private static final int WARMUP = Integer.getInteger("benchmark.warmup", 2_000);
+
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 5_000);
+
+    private static final Type PRODUCT_LIST = new ParameterizedTypeReference<List<Product>>() { }.getType();
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void productSerializer_WritesPage_AllocatesLessThanBeanSerializer() throws Exception {
+        List<Product> page = page();
+        double[] bean = measure(new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json()
+                .mixIn(Product.class, BeanSerialized.class)
+                .build()), page);
+        double[] lean = measure(new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build()), page);
+
+        System.out.printf("json: pageSize=%d%n", PAGE_SIZE);
+        System.out.printf("json: bean serializer %.0f B/op, %.1f us/op%n", bean[0], bean[1]);
+        System.out.printf("json: product serializer %.0f B/op, %.1f us/op (%.1f%% of bytes)%n",
+                lean[0], lean[1], 100 * lean[0] / bean[0]);
+
+        assertTrue(lean[0] < bean[0], "product serializer should allocate less per page");
+    }
+
+    /**
+     * @return bytes allocated per page and microseconds per page
+     */
+    private static double[] measure(GenericHttpMessageConverter<Object> converter, Object page) throws Exception {
+        HttpOutputMessage output = discardingOutput();
+        for (int i = 0; i < WARMUP; i++) {
+            output.getHeaders().clear();
+            converter.write(page, PRODUCT_LIST, MediaType.APPLICATION_JSON, output);
+        }
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            output.getHeaders().clear();
+            converter.write(page, PRODUCT_LIST, MediaType.APPLICATION_JSON, output);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return new double[]{(double) allocated / ITERATIONS, elapsed / 1e3 / ITERATIONS};
+    }
+
+    private static HttpOutputMessage discardingOutput() {
+        HttpHeaders headers = new HttpHeaders();
+        OutputStream body = OutputStream.nullOutputStream();
+        return new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+    }
+
+    private static List<Product> page() {
+        List<Product> page = new ArrayList<>(PAGE_SIZE);
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            Product product = new Product();
+            product.setId(id);
+            product.setName("product-" + id);
+            product.setPrice(id % 10_000);
+            product.setQuantity(id % 100);
+            page.add(product);
+        }
+        return page;
+    }
+
+    @JsonSerialize(using = JsonSerializer.None.class)
+    abstract static class BeanSerialized {
+    }
+}
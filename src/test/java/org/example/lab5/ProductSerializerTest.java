@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.example.lab5.models.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductSerializerTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final ObjectMapper beanMapper = Jackson2ObjectMapperBuilder.json()
+            .mixIn(Product.class, BeanSerialized.class)
+            .build();
+
+    @Test
+    void serialize_ProductList_MatchesBeanSerializerOutput() throws Exception {
+        Product laptop = new Product();
+        laptop.setId(1L);
+        laptop.setName("Laptop \"Pro\" 15″");
+        laptop.setPrice(999L);
+        laptop.setQuantity(10L);
+        laptop.setDiscontinued(true);
+        laptop.setArchived(true);
+        laptop.setArchivedAt(Instant.parse("2025-03-01T10:15:30Z"));
+        laptop.setTenantId("acme");
+        Product blank = new Product();
+        blank.setId(2L);
+        List<Product> products = List.of(laptop, blank);
+
+        assertEquals(beanMapper.readTree(beanMapper.writeValueAsBytes(products)),
+                objectMapper.readTree(objectMapper.writeValueAsBytes(products)));
+    }
+
+    @Test
+    void serialize_IgnoredFields_AreNotWritten() throws Exception {
+        Product product = new Product();
+        product.setId(1L);
+        product.setTenantId("acme");
+        product.setDeleted(true);
+        product.setDeletedAt(Instant.parse("2025-03-01T10:15:30Z"));
+
+        String json = objectMapper.writeValueAsString(product);
+
+        assertEquals("{\"id\":1,\"name\":null,\"price\":null,\"quantity\":null,"
+                + "\"discontinued\":false,\"archived\":false}", json);
+    }
+
+    @JsonSerialize(using = JsonSerializer.None.class)
+    abstract static class BeanSerialized {
+    }
+}
@@ -4,24 +4,42 @@
 package org.example.lab5;
 
 import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductChangedEvent;
+import org.example.lab5.models.ProductIdRange;
+import org.example.lab5.models.ProductScanPage;
+import org.example.lab5.models.TotalCountMode;
 import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.services.IdempotencyService;
+import org.example.lab5.services.ProductCacheService;
+import org.example.lab5.services.ProductCountService;
 import org.example.lab5.services.ProductService;
+import org.example.lab5.services.ProductSnapshotService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
-
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +48,21 @@ public class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductSnapshotService productSnapshotService;
+
+    @Mock
+    private ProductCacheService productCacheService;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private ProductCountService productCountService;
+
     @InjectMocks
     private ProductService productService;
 
@@ -54,15 +87,15 @@ public class ProductServiceTest {
     @Test
     void findAll_ValidPageAndSize_ReturnsPagedProducts() {
         List<Product> products = Arrays.asList(product1, product2);
-        Page<Product> page = new PageImpl<>(products);
-        when(productRepository.findAll(any(PageRequest.class))).thenReturn(page);
+        Slice<Product> slice = new SliceImpl<>(products);
+        when(productRepository.findAllByArchivedFalse(any(PageRequest.class))).thenReturn(slice);
 
         List<Product> result = productService.findAll(0, 2);
 
         assertEquals(2, result.size());
         assertEquals(product1, result.get(0));
         assertEquals(product2, result.get(1));
-        verify(productRepository).findAll(PageRequest.of(0, 2));
+        verify(productRepository).findAllByArchivedFalse(PageRequest.of(0, 2));
     }
 
     @Test
@@ -77,13 +110,48 @@ public class ProductServiceTest {
 
     @Test
     void findAll_EmptyPage_ReturnsEmptyList() {
-        Page<Product> emptyPage = new PageImpl<>(List.of());
-        when(productRepository.findAll(any(PageRequest.class))).thenReturn(emptyPage);
+        Slice<Product> emptySlice = new SliceImpl<>(List.of());
+        when(productRepository.findAllByArchivedFalse(any(PageRequest.class))).thenReturn(emptySlice);
 
         List<Product> result = productService.findAll(0, 5);
 
         assertTrue(result.isEmpty());
-        verify(productRepository).findAll(PageRequest.of(0, 5));
+        verify(productRepository).findAllByArchivedFalse(PageRequest.of(0, 5));
+    }
+
+    @Test
+    void findAll_IncludeArchived_ScansAllPartitions() {
+        Slice<Product> slice = new SliceImpl<>(List.of(product1));
+        when(productRepository.findAllBy(PageRequest.of(0, 10))).thenReturn(slice);
+
+        List<Product> result = productService.findAll(0, 10, true);
+
+        assertEquals(List.of(product1), result);
+        verify(productRepository, never()).findAllByArchivedFalse(any());
+    }
+
+    @Test
+    void findAllAsync_ReturnsCompletedPage() {
+        Slice<Product> slice = new SliceImpl<>(List.of(product1));
+        when(productRepository.findAllByArchivedFalse(PageRequest.of(0, 10))).thenReturn(slice);
+
+        ResponseEntity<List<Product>> result = productService.findAllAsync(0, 10, false, null).join();
+
+        assertEquals(List.of(product1), result.getBody());
+        assertFalse(result.getHeaders().containsKey(ProductService.TOTAL_COUNT_HEADER));
+        verifyNoInteractions(productCountService);
+    }
+
+    @Test
+    void findAllAsync_WithTotal_CountsInTheSameTask() {
+        Slice<Product> slice = new SliceImpl<>(List.of(product1));
+        when(productRepository.findAllByArchivedFalse(PageRequest.of(0, 10))).thenReturn(slice);
+        when(productCountService.count(TotalCountMode.EXACT)).thenReturn(42L);
+
+        ResponseEntity<List<Product>> result = productService.findAllAsync(0, 10, false, TotalCountMode.EXACT).join();
+
+        assertEquals(List.of(product1), result.getBody());
+        assertEquals("42", result.getHeaders().getFirst(ProductService.TOTAL_COUNT_HEADER));
     }
 
     @Test
@@ -117,6 +185,51 @@ public class ProductServiceTest {
         verify(productRepository).findById(-1L);
     }
 
+    @Test
+    void findById_SnapshotEnabled_DoesNotQueryRepository() {
+        when(productSnapshotService.isEnabled()).thenReturn(true);
+        when(productSnapshotService.findById(1L)).thenReturn(product1);
+
+        Product result = productService.findById(1L);
+
+        assertEquals(product1, result);
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    void findById_SnapshotMiss_FallsBackToRepository() {
+        Product archived = new Product();
+        archived.setId(7L);
+        archived.setArchived(true);
+        when(productSnapshotService.isEnabled()).thenReturn(true);
+        when(productSnapshotService.findById(7L)).thenReturn(null);
+        when(productRepository.findById(7L)).thenReturn(Optional.of(archived));
+
+        assertEquals(archived, productService.findById(7L));
+    }
+
+    @Test
+    void findById_CacheEnabled_ServedThroughCache() {
+        when(productCacheService.isEnabled()).thenReturn(true);
+        when(productCacheService.findById(eq(1L), any())).thenReturn(product1);
+
+        Product result = productService.findById(1L);
+
+        assertEquals(product1, result);
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    void findAll_SnapshotEnabled_DoesNotQueryRepository() {
+        when(productSnapshotService.isEnabled()).thenReturn(true);
+        when(productSnapshotService.findAll(0, 2)).thenReturn(List.of(product1, product2));
+
+        List<Product> result = productService.findAll(0, 2);
+
+        assertEquals(List.of(product1, product2), result);
+        verify(productRepository, never()).findAllByArchivedFalse(any());
+    }
+
     // Tests for create
     @Test
     void create_ValidProduct_ReturnsId() {
@@ -128,6 +241,25 @@ public class ProductServiceTest {
         verify(productRepository).save(product1);
     }
 
+    @Test
+    void create_ValidProduct_PublishesCreatedEvent() {
+        when(productRepository.save(any(Product.class))).thenReturn(product1);
+
+        productService.create(product1);
+
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, 1L, product1));
+    }
+
+    @Test
+    void create_WithIdempotencyKey_DelegatesToIdempotencyService() {
+        when(idempotencyService.execute(eq("key-1"), eq(product1), any())).thenReturn(1L);
+
+        Long result = productService.create(product1, "key-1");
+
+        assertEquals(1L, result);
+        verify(productRepository, never()).save(any());
+    }
+
     @Test
     void create_NullProduct_ThrowsNullPointerException() {
         assertThrows(NullPointerException.class, () -> productService.create(null));
@@ -157,6 +289,48 @@ public class ProductServiceTest {
         verify(productRepository).save(product1);
     }
 
+    @Test
+    void update_ArchivedProduct_KeepsArchiveState() {
+        Instant archivedAt = Instant.parse("2025-03-01T02:30:00Z");
+        Product stored = new Product();
+        stored.setId(1L);
+        stored.setArchived(true);
+        stored.setArchivedAt(archivedAt);
+        Product body = new Product();
+        body.setId(1L);
+        body.setName("Renamed");
+        body.setDiscontinued(true);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Product result = productService.update(body);
+
+        assertTrue(result.isArchived());
+        assertEquals(archivedAt, result.getArchivedAt());
+        assertEquals("Renamed", result.getName());
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 1L, result, stored));
+    }
+
+    @Test
+    void update_ArchivedProductNoLongerDiscontinued_IsRestored() {
+        Product stored = new Product();
+        stored.setId(1L);
+        stored.setDiscontinued(true);
+        stored.setArchived(true);
+        stored.setArchivedAt(Instant.parse("2025-03-01T02:30:00Z"));
+        Product body = new Product();
+        body.setId(1L);
+        body.setName("Back in the catalog");
+        when(productRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Product result = productService.update(body);
+
+        assertFalse(result.isArchived());
+        assertNull(result.getArchivedAt());
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.RESTORED, 1L, result, stored));
+    }
+
     @Test
     void update_NullProduct_ThrowsNullPointerException() {
         assertThrows(NullPointerException.class, () -> productService.update(null));
@@ -193,52 +367,91 @@ public class ProductServiceTest {
     // Tests for delete
     @Test
     void delete_ExistingId_DeletesSuccessfully() {
-        doNothing().when(productRepository).deleteById(1L);
+        when(productRepository.softDeleteById(eq(1L), any(Instant.class))).thenReturn(1);
+
+        productService.delete(1L);
+
+        verify(productRepository).softDeleteById(eq(1L), any(Instant.class));
+    }
+
+    @Test
+    void delete_ExistingId_PublishesDeletedEvent() {
+        when(productRepository.softDeleteById(eq(1L), any(Instant.class))).thenReturn(1);
+
+        productService.delete(1L);
+
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 1L, null));
+    }
+
+    @Test
+    void delete_ArchivedId_PublishesDeletedEventFromArchive() {
+        when(productRepository.softDeleteById(eq(1L), any(Instant.class))).thenReturn(0);
+        when(productRepository.softDeleteArchivedById(eq(1L), any(Instant.class))).thenReturn(1);
 
         productService.delete(1L);
 
-        verify(productRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 1L, null, null, true));
+    }
+
+    @Test
+    void delete_ExistingId_PublishesPreviousState() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product1));
+        when(productRepository.softDeleteById(eq(1L), any(Instant.class))).thenReturn(1);
+
+        productService.delete(1L);
+
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 1L, null, product1));
     }
 
     @Test
     void delete_NonExistingId_DoesNotThrowException() {
-        doNothing().when(productRepository).deleteById(999L);
+        when(productRepository.softDeleteById(eq(999L), any(Instant.class))).thenReturn(0);
 
         productService.delete(999L);
 
-        verify(productRepository).deleteById(999L);
+        verify(productRepository).softDeleteById(eq(999L), any(Instant.class));
+    }
+
+    @Test
+    void delete_NonExistingId_DoesNotPublishEvent() {
+        when(productRepository.softDeleteById(eq(999L), any(Instant.class))).thenReturn(0);
+
+        productService.delete(999L);
+
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+        verify(productRepository, never()).deleteById(any());
     }
 
     @Test
     void delete_NegativeId_DoesNotThrowException() {
-        doNothing().when(productRepository).deleteById(-1L);
+        when(productRepository.softDeleteById(eq(-1L), any(Instant.class))).thenReturn(0);
 
         productService.delete(-1L);
 
-        verify(productRepository).deleteById(-1L);
+        verify(productRepository).softDeleteById(eq(-1L), any(Instant.class));
     }
 
     @Test
     void delete_ValidId_VerifiesSingleDeletion() {
-        doNothing().when(productRepository).deleteById(1L);
+        when(productRepository.softDeleteById(eq(1L), any(Instant.class))).thenReturn(1);
 
         productService.delete(1L);
 
-        verify(productRepository, times(1)).deleteById(1L);
+        verify(productRepository, times(1)).softDeleteById(eq(1L), any(Instant.class));
     }
 
     // Additional edge cases
     @Test
     void findAll_LargePageSize_ReturnsProducts() {
         List<Product> products = List.of(product1);
-        Page<Product> page = new PageImpl<>(products);
-        when(productRepository.findAll(any(PageRequest.class))).thenReturn(page);
+        Slice<Product> slice = new SliceImpl<>(products);
+        when(productRepository.findAllByArchivedFalse(any(PageRequest.class))).thenReturn(slice);
 
         List<Product> result = productService.findAll(0, 100);
 
         assertEquals(1, result.size());
         assertEquals(product1, result.get(0));
-        verify(productRepository).findAll(PageRequest.of(0, 100));
+        verify(productRepository).findAllByArchivedFalse(PageRequest.of(0, 100));
     }
 
     @Test
@@ -266,4 +479,189 @@ public class ProductServiceTest {
         assertEquals(product, result);
         verify(productRepository).save(product);
     }
-}
\ No newline at end of file
+
+    // Tests for sharded scans
+    @Test
+    void startScan_PinsCurrentIdRange() {
+        ProductIdRange range = idRange(1L, 100L);
+        when(productRepository.findIdRange()).thenReturn(range);
+
+        assertEquals("1:100", productService.startScan());
+    }
+
+    @Test
+    void scan_FirstPage_ReadsShardOfTokenRange() {
+        when(productRepository.findByArchivedFalseAndIdGreaterThanAndIdLessThanOrderByIdAsc(25L, 51L, Limit.of(2)))
+                .thenReturn(List.of(product1, product2));
+
+        ProductScanPage result = productService.scan(1, 4, "1:100", null, 2);
+
+        assertEquals(List.of(product1, product2), result.products());
+        assertEquals("2:51", result.nextCursor());
+        verify(productRepository, never()).findIdRange();
+    }
+
+    @Test
+    void scan_LastShard_IsOpenEnded() {
+        productService.scan(3, 4, "1:100", null, 10);
+
+        verify(productRepository).findByArchivedFalseAndIdGreaterThanAndIdLessThanOrderByIdAsc(75L, Long.MAX_VALUE, Limit.of(10));
+    }
+
+    @Test
+    void scan_AllShards_CoverEveryIdExactlyOnce() {
+        long[][] ranges = {{1, 100}, {1, 50}, {7, 9}, {1_000, 1_000}, {3, 1_003}};
+        for (long[] bounds : ranges) {
+            List<Product> catalog = catalog(bounds[0], bounds[1]);
+            ProductIdRange range = idRange(bounds[0], bounds[1]);
+            when(productRepository.findIdRange()).thenReturn(range);
+            stubKeysetReads(catalog);
+            String token = productService.startScan();
+            for (int shards = 1; shards <= 16; shards++) {
+                Map<Long, Integer> visits = scanAllShards(token, shards);
+                for (Product product : catalog) {
+                    assertEquals(1, visits.getOrDefault(product.getId(), 0),
+                            "id " + product.getId() + " in " + Arrays.toString(bounds) + " with " + shards + " shards");
+                }
+                assertEquals(catalog.size(), visits.size());
+            }
+        }
+    }
+
+    @Test
+    void scan_IdRangeChangesWhileWorkersStart_ShardsStayDisjointAndComplete() {
+        List<Product> catalog = catalog(1, 100);
+        ProductIdRange before = idRange(1L, 100L);
+        when(productRepository.findIdRange()).thenReturn(before);
+        stubKeysetReads(catalog);
+        String token = productService.startScan();
+
+        ProductIdRange after = idRange(40L, 160L);
+        lenient().when(productRepository.findIdRange()).thenReturn(after);
+        Map<Long, Integer> visits = scanAllShards(token, 4);
+
+        for (Product product : catalog) {
+            assertEquals(1, visits.getOrDefault(product.getId(), 0), "id " + product.getId());
+        }
+        verify(productRepository, times(1)).findIdRange();
+    }
+
+    @Test
+    void scan_WithCursor_ResumesAfterLastIdWithoutRecomputingRange() {
+        when(productRepository.findByArchivedFalseAndIdGreaterThanAndIdLessThanOrderByIdAsc(2L, 50L, Limit.of(2)))
+                .thenReturn(List.of(product1));
+
+        ProductScanPage result = productService.scan(1, 4, null, "2:50", 2);
+
+        assertEquals(List.of(product1), result.products());
+        assertNull(result.nextCursor());
+        verify(productRepository, never()).findIdRange();
+    }
+
+    @Test
+    void scan_EmptyCatalog_ReturnsEmptyPage() {
+        ProductIdRange range = idRange(null, null);
+        when(productRepository.findIdRange()).thenReturn(range);
+
+        ProductScanPage result = productService.scan(0, 2, productService.startScan(), null, 10);
+
+        assertTrue(result.products().isEmpty());
+        assertNull(result.nextCursor());
+        verify(productRepository, never())
+                .findByArchivedFalseAndIdGreaterThanAndIdLessThanOrderByIdAsc(any(), any(), any(Limit.class));
+    }
+
+    @Test
+    void scan_WithoutTokenOrCursor_ThrowsBadRequest() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> productService.scan(0, 4, null, null, 10));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void scan_ShardOutOfRange_ThrowsBadRequest() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> productService.scan(4, 4, "1:100", null, 10));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void scan_MalformedCursor_ThrowsBadRequest() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> productService.scan(0, 4, null, "oops", 10));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void aggregate_VisitsEveryProductOnce() {
+        List<Product> catalog = catalog(1, 50);
+        ProductIdRange range = idRange(1L, 50L);
+        when(productRepository.findIdRange()).thenReturn(range);
+        stubKeysetReads(catalog);
+
+        long[] totals = productService.aggregate(3,
+                () -> new long[2],
+                (acc, product) -> {
+                    acc[0]++;
+                    acc[1] += product.getQuantity();
+                },
+                (left, right) -> new long[]{left[0] + right[0], left[1] + right[1]});
+
+        assertEquals(50, totals[0]);
+        assertEquals(50 * 51 / 2, totals[1]);
+    }
+
+    @Test
+    void aggregate_EmptyCatalog_ReturnsIdentity() {
+        ProductIdRange range = idRange(null, null);
+        when(productRepository.findIdRange()).thenReturn(range);
+
+        Long result = productService.aggregate(2, () -> 0L, (acc, product) -> { }, Long::sum);
+
+        assertEquals(0L, result);
+        verify(productRepository, never())
+                .findByArchivedFalseAndIdGreaterThanAndIdLessThanOrderByIdAsc(any(), any(), any(Limit.class));
+    }
+
+    private Map<Long, Integer> scanAllShards(String token, int shards) {
+        Map<Long, Integer> visits = new HashMap<>();
+        for (int shard = 0; shard < shards; shard++) {
+            for (Product product : productService.scan(shard, shards, token, null, Integer.MAX_VALUE).products()) {
+                visits.merge(product.getId(), 1, Integer::sum);
+            }
+        }
+        return visits;
+    }
+
+    private void stubKeysetReads(List<Product> catalog) {
+        doAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            long upperBound = invocation.getArgument(1);
+            return catalog.stream()
+                    .filter(product -> product.getId() > after && product.getId() < upperBound)
+                    .limit(invocation.<Limit>getArgument(2).max())
+                    .toList();
+        }).when(productRepository).findByArchivedFalseAndIdGreaterThanAndIdLessThanOrderByIdAsc(any(), any(), any(Limit.class));
+    }
+
+    private static List<Product> catalog(long minId, long maxId) {
+        List<Product> catalog = new ArrayList<>();
+        for (long id = minId; id <= maxId; id++) {
+            Product product = new Product();
+            product.setId(id);
+            product.setQuantity(id);
+            catalog.add(product);
+        }
+        return catalog;
+    }
+
+    private static ProductIdRange idRange(Long minId, Long maxId) {
+        ProductIdRange range = mock(ProductIdRange.class);
+        lenient().when(range.getMinId()).thenReturn(minId);
+        lenient().when(range.getMaxId()).thenReturn(maxId);
+        return range;
+    }
+}
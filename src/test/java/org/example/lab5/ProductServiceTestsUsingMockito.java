@@ -5,23 +5,28 @@ package org.example.lab5;
 
 import org.example.lab5.models.Product;
 import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.services.ProductCacheService;
 import org.example.lab5.services.ProductService;
+import org.example.lab5.services.ProductSnapshotService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.dao.DataAccessException;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +35,15 @@ public class ProductServiceTestsUsingMockito {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductSnapshotService productSnapshotService;
+
+    @Mock
+    private ProductCacheService productCacheService;
+
     @InjectMocks
     private ProductService productService;
 
@@ -47,18 +61,18 @@ public class ProductServiceTestsUsingMockito {
     @Test
     void findAll_NegativePageSize_ThrowsIllegalArgumentException() {
         assertThrows(IllegalArgumentException.class, () -> productService.findAll(0, -1));
-        verify(productRepository, never()).findAll(any(PageRequest.class));
+        verify(productRepository, never()).findAllByArchivedFalse(any(PageRequest.class));
     }
 
     @Test
     void findAll_LargePageNumber_ReturnsEmptyList() {
-        Page<Product> emptyPage = new PageImpl<>(List.of());
-        when(productRepository.findAll(PageRequest.of(1000, 10))).thenReturn(emptyPage);
+        Slice<Product> emptySlice = new SliceImpl<>(List.of());
+        when(productRepository.findAllByArchivedFalse(PageRequest.of(1000, 10))).thenReturn(emptySlice);
 
         List<Product> result = productService.findAll(1000, 10);
 
         assertTrue(result.isEmpty());
-        verify(productRepository).findAll(PageRequest.of(1000, 10));
+        verify(productRepository).findAllByArchivedFalse(PageRequest.of(1000, 10));
     }
 
     @Test
@@ -119,10 +133,10 @@ public class ProductServiceTestsUsingMockito {
 
     @Test
     void delete_RepositoryThrowsException_PropagatesException() {
-        doThrow(new DataAccessException("DB Error") {}).when(productRepository).deleteById(1L);
+        when(productRepository.softDeleteById(eq(1L), any(Instant.class))).thenThrow(new DataAccessException("DB Error") {});
 
         assertThrows(DataAccessException.class, () -> productService.delete(1L));
-        verify(productRepository).deleteById(1L);
+        verify(productRepository).softDeleteById(eq(1L), any(Instant.class));
     }
 
     @Test
@@ -146,13 +160,13 @@ public class ProductServiceTestsUsingMockito {
 
     @Test
     void findAll_SmallPageSize_ReturnsSingleProduct() {
-        Page<Product> singleProductPage = new PageImpl<>(List.of(product));
-        when(productRepository.findAll(PageRequest.of(0, 1))).thenReturn(singleProductPage);
+        Slice<Product> singleProductSlice = new SliceImpl<>(List.of(product));
+        when(productRepository.findAllByArchivedFalse(PageRequest.of(0, 1))).thenReturn(singleProductSlice);
 
         List<Product> result = productService.findAll(0, 1);
 
         assertEquals(1, result.size());
         assertEquals(product, result.get(0));
-        verify(productRepository).findAll(PageRequest.of(0, 1));
+        verify(productRepository).findAllByArchivedFalse(PageRequest.of(0, 1));
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import org.example.lab5.models.Product;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.services.ProductSnapshotService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the heap footprint and lookup latency of the off-heap snapshot with
+ * an on-heap {@code Map<Long, Product>} holding the same catalog. Run with
+ * {@code ./gradlew benchmark -Dbenchmark.products=5000000}.
+ */
+@Tag("benchmark")
+public class ProductSnapshotBenchmarkTests {
+
+    private static final int PRODUCTS = Integer.getInteger("benchmark.products", 5_000_000);
+
+    private static final int LOOKUPS = Integer.getInteger("benchmark.lookups", 1_000_000);
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    @Test
+    void snapshot_FiveMillionProducts_UsesLessHeapThanEntityMap() {
+        long baseline = usedHeap();
+        Map<Long, Product> entityMap = new HashMap<>();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            entityMap.put(id, product(id));
+        }
+        long entityMapHeap = usedHeap() - baseline;
+        double entityMapNanos = measureLookups(entityMap::get);
+        entityMap = null;
+
+        baseline = usedHeap();
+        ProductSnapshotService snapshot = loadSnapshot();
+        long snapshotHeap = usedHeap() - baseline;
+        double snapshotNanos = measureLookups(snapshot::findById);
+
+        System.out.printf("snapshot: products=%d%n", PRODUCTS);
+        System.out.printf("snapshot: entity map heap=%d MiB, lookup=%.0f ns/op%n",
+                entityMapHeap >> 20, entityMapNanos);
+        System.out.printf("snapshot: off-heap store heap=%d MiB, off-heap=%d MiB, lookup=%.0f ns/op%n",
+                snapshotHeap >> 20, snapshot.offHeapBytes() >> 20, snapshotNanos);
+
+        assertEquals(PRODUCTS, snapshot.findAll(0, Integer.MAX_VALUE).size());
+        assertTrue(snapshotHeap < entityMapHeap, "snapshot should keep the catalog off the heap");
+    }
+
+    private static ProductSnapshotService loadSnapshot() {
+        ProductRepository repository = mock(ProductRepository.class);
+        int batchSize = 10_000;
+        when(repository.findByArchivedFalseAndIdGreaterThanOrderByIdAsc(any(), any(Limit.class))).thenAnswer(invocation -> {
+            long after = Math.max(0, invocation.<Long>getArgument(0));
+            List<Product> batch = new ArrayList<>(batchSize);
+            for (long id = after + 1; id <= Math.min(PRODUCTS, after + batchSize); id++) {
+                batch.add(product(id));
+            }
+            return batch;
+        });
+        ProductSnapshotService snapshot = new ProductSnapshotService(repository, true, batchSize);
+        snapshot.reload();
+        return snapshot;
+    }
+
+    private static double measureLookups(LongFunction<Product> lookup) {
+        Random random = new Random(7);
+        long[] ids = new long[LOOKUPS];
+        Arrays.setAll(ids, i -> 1 + random.nextInt(PRODUCTS));
+        for (long id : ids) {
+            lookup.apply(id);
+        }
+        long start = System.nanoTime();
+        long checksum = 0;
+        for (long id : ids) {
+            checksum += lookup.apply(id).getPrice();
+        }
+        double nanosPerLookup = (System.nanoTime() - start) / (double) LOOKUPS;
+        assertTrue(checksum > 0);
+        return nanosPerLookup;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(100 + id % 1000);
+        product.setQuantity(id % 50);
+        return product;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductChangedEvent;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.services.ProductSnapshotService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductSnapshotServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSnapshotService productSnapshotService;
+
+    @BeforeEach
+    void setUp() {
+        productSnapshotService = new ProductSnapshotService(productRepository, true, 2);
+    }
+
+    @Test
+    void isEnabled_BeforeFirstLoad_ReturnsFalse() {
+        assertFalse(productSnapshotService.isEnabled());
+    }
+
+    @Test
+    void reload_LoadsCatalogInKeysetBatches() {
+        loadCatalog();
+
+        assertTrue(productSnapshotService.isEnabled());
+        assertEquals(product(2L, "Phone", 499L, null), productSnapshotService.findById(2L));
+        assertNull(productSnapshotService.findById(4L));
+        verify(productRepository, times(2)).findByArchivedFalseAndIdGreaterThanOrderByIdAsc(any(), any(Limit.class));
+    }
+
+    @Test
+    void onProductChanged_DiscontinuedProduct_KeepsFlag() {
+        loadCatalog();
+        Product phone = product(2L, "Phone", 499L, null);
+        phone.setDiscontinued(true);
+
+        productSnapshotService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 2L, phone));
+
+        assertTrue(productSnapshotService.findById(2L).isDiscontinued());
+        assertFalse(productSnapshotService.findById(1L).isDiscontinued());
+    }
+
+    @Test
+    void findAll_PagesInLoadOrder() {
+        loadCatalog();
+
+        assertEquals(List.of(1L, 2L), ids(productSnapshotService.findAll(0, 2)));
+        assertEquals(List.of(3L), ids(productSnapshotService.findAll(1, 2)));
+        assertTrue(productSnapshotService.findAll(2, 2).isEmpty());
+    }
+
+    @Test
+    void findAll_AfterDeletion_StartsPageAtLiveOffset() {
+        loadCatalog();
+
+        productSnapshotService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 1L, null));
+
+        assertEquals(List.of(3L), ids(productSnapshotService.findAll(1, 1)));
+        assertTrue(productSnapshotService.findAll(2, 1).isEmpty());
+    }
+
+    @Test
+    void findAll_InvalidPage_ThrowsIllegalArgumentException() {
+        loadCatalog();
+
+        assertThrows(IllegalArgumentException.class, () -> productSnapshotService.findAll(-1, 2));
+        assertThrows(IllegalArgumentException.class, () -> productSnapshotService.findAll(0, 0));
+    }
+
+    @Test
+    void onProductChanged_AppliesMutationsWithoutDatabaseAccess() {
+        loadCatalog();
+        Product renamed = product(1L, "Gaming Laptop", 1299L, 5L);
+
+        productSnapshotService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 1L, renamed));
+        productSnapshotService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 2L, null));
+
+        assertEquals(renamed, productSnapshotService.findById(1L));
+        assertNull(productSnapshotService.findById(2L));
+        assertEquals(List.of(1L, 3L), ids(productSnapshotService.findAll(0, 10)));
+        verify(productRepository, times(2)).findByArchivedFalseAndIdGreaterThanOrderByIdAsc(any(), any(Limit.class));
+    }
+
+    @Test
+    void onProductChanged_UpdateOfArchivedProduct_RemovesProduct() {
+        loadCatalog();
+        Product archived = product(1L, "Laptop", 999L, 10L);
+        archived.setArchived(true);
+
+        productSnapshotService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 1L, archived));
+
+        assertEquals(List.of(2L, 3L), ids(productSnapshotService.findAll(0, 10)));
+    }
+
+    private void loadCatalog() {
+        when(productRepository.findByArchivedFalseAndIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Limit.class)))
+                .thenReturn(List.of(product(1L, "Laptop", 999L, 10L), product(2L, "Phone", 499L, null)));
+        when(productRepository.findByArchivedFalseAndIdGreaterThanOrderByIdAsc(eq(2L), any(Limit.class)))
+                .thenReturn(List.of(product(3L, "Tablet", 299L, 15L)));
+        productSnapshotService.reload();
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+
+    private static Product product(long id, String name, Long price, Long quantity) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(price);
+        product.setQuantity(quantity);
+        return product;
+    }
+}
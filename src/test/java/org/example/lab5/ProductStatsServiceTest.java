@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import org.example.lab5.models.Product;
+import org.example.lab5.models.ProductChangedEvent;
+import org.example.lab5.models.ProductStats;
+import org.example.lab5.models.ProductTotals;
+import org.example.lab5.repositories.ProductRepository;
+import org.example.lab5.services.ProductStatsService;
+import org.example.lab5.tenancy.TenantContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductStatsServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductTotals totals;
+
+    private ProductStatsService productStatsService;
+
+    private Product cable;
+
+    @BeforeEach
+    void setUp() {
+        productStatsService = new ProductStatsService(productRepository, 5L, 10);
+
+        cable = new Product();
+        cable.setId(1L);
+        cable.setName("Cable");
+        cable.setPrice(10L);
+        cable.setQuantity(2L);
+
+        when(totals.getProductCount()).thenReturn(3L);
+        when(totals.getTotalQuantity()).thenReturn(32L);
+        when(totals.getTotalValue()).thenReturn(1020L);
+        when(totals.getLowStockCount()).thenReturn(1L);
+        when(productRepository.aggregateTotals(5L)).thenReturn(totals);
+        when(productRepository.findByArchivedFalseAndQuantityLessThanOrderByQuantityAsc(eq(5L), any(Limit.class)))
+                .thenReturn(List.of(cable));
+    }
+
+    @Test
+    void stats_FirstCall_ComputesAggregates() {
+        ProductStats stats = productStatsService.stats();
+
+        assertEquals(3L, stats.productCount());
+        assertEquals(32L, stats.totalQuantity());
+        assertEquals(1020L, stats.totalValue());
+        assertEquals(5L, stats.lowStockThreshold());
+        assertEquals(1L, stats.lowStockCount());
+        assertEquals(List.of(cable), stats.lowStock());
+    }
+
+    @Test
+    void stats_RepeatedCalls_ServedFromMemory() {
+        productStatsService.stats();
+        productStatsService.stats();
+
+        verify(productRepository, times(1)).aggregateTotals(5L);
+    }
+
+    @Test
+    void refreshIfStale_NoMutations_DoesNotQueryRepository() {
+        productStatsService.stats();
+
+        productStatsService.refreshIfStale();
+
+        verify(productRepository, times(1)).aggregateTotals(5L);
+    }
+
+    @Test
+    void refreshIfStale_AfterMutation_RecomputesAggregates() {
+        productStatsService.stats();
+        productStatsService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 1L, null));
+
+        productStatsService.refreshIfStale();
+
+        verify(productRepository, times(2)).aggregateTotals(5L);
+    }
+
+    @Test
+    void refreshIfStale_MutationInOtherTenant_RecomputesOnlyThatTenant() {
+        productStatsService.stats();
+        TenantContext.run("acme", () -> productStatsService.stats());
+        TenantContext.run("acme", () -> productStatsService.onProductChanged(
+                new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 1L, null)));
+
+        productStatsService.refreshIfStale();
+        productStatsService.refreshIfStale();
+
+        verify(productRepository, times(3)).aggregateTotals(5L);
+    }
+
+    @Test
+    void onProductChanged_Created_AppliesDeltaWithoutQuery() {
+        productStatsService.stats();
+        Product phone = product(2L, 100L, 1L);
+
+        productStatsService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, 2L, phone));
+        productStatsService.refreshIfStale();
+
+        ProductStats stats = productStatsService.stats();
+        assertEquals(4L, stats.productCount());
+        assertEquals(33L, stats.totalQuantity());
+        assertEquals(1120L, stats.totalValue());
+        assertEquals(2L, stats.lowStockCount());
+        assertEquals(List.of(phone, cable), stats.lowStock());
+        verify(productRepository, times(1)).aggregateTotals(5L);
+    }
+
+    @Test
+    void onProductChanged_UpdatedWithPreviousState_AppliesDelta() {
+        productStatsService.stats();
+        Product restocked = product(1L, 10L, 20L);
+
+        productStatsService.onProductChanged(
+                new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 1L, restocked, cable));
+        productStatsService.refreshIfStale();
+
+        ProductStats stats = productStatsService.stats();
+        assertEquals(3L, stats.productCount());
+        assertEquals(50L, stats.totalQuantity());
+        assertEquals(1200L, stats.totalValue());
+        assertEquals(0L, stats.lowStockCount());
+        assertEquals(List.of(), stats.lowStock());
+        verify(productRepository, times(1)).aggregateTotals(5L);
+        verify(productRepository, times(1)).findByArchivedFalseAndQuantityLessThanOrderByQuantityAsc(eq(5L), any(Limit.class));
+    }
+
+    @Test
+    void onProductChanged_DeletedWithPreviousState_AppliesDelta() {
+        productStatsService.stats();
+
+        productStatsService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 1L, null, cable));
+
+        ProductStats stats = productStatsService.stats();
+        assertEquals(2L, stats.productCount());
+        assertEquals(30L, stats.totalQuantity());
+        assertEquals(1000L, stats.totalValue());
+        assertEquals(0L, stats.lowStockCount());
+        assertEquals(List.of(), stats.lowStock());
+    }
+
+    @Test
+    void onProductChanged_ArchivedWithPreviousState_AppliesDelta() {
+        productStatsService.stats();
+
+        productStatsService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.ARCHIVED, 1L, null, cable));
+        productStatsService.refreshIfStale();
+
+        assertEquals(2L, productStatsService.stats().productCount());
+        verify(productRepository, times(1)).aggregateTotals(5L);
+    }
+
+    @Test
+    void onProductChanged_DeletedFromArchive_LeavesStatsUnchanged() {
+        productStatsService.stats();
+
+        productStatsService.onProductChanged(
+                new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 7L, null, null, true));
+        productStatsService.refreshIfStale();
+
+        assertEquals(3L, productStatsService.stats().productCount());
+        verify(productRepository, times(1)).aggregateTotals(5L);
+    }
+
+    @Test
+    void refreshIfStale_ListedProductRestockedWithUnlistedLowStock_ReloadsOnlyLowStock() {
+        when(totals.getLowStockCount()).thenReturn(2L);
+        productStatsService.stats();
+
+        productStatsService.onProductChanged(
+                new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 1L, product(1L, 10L, 20L), cable));
+        productStatsService.refreshIfStale();
+
+        verify(productRepository, times(1)).aggregateTotals(5L);
+        verify(productRepository, times(2)).findByArchivedFalseAndQuantityLessThanOrderByQuantityAsc(eq(5L), any(Limit.class));
+    }
+
+    @Test
+    void reconcile_RecomputesEveryLoadedTenant() {
+        productStatsService.stats();
+        TenantContext.run("acme", () -> productStatsService.stats());
+
+        productStatsService.reconcile();
+
+        verify(productRepository, times(4)).aggregateTotals(5L);
+    }
+
+    private static Product product(long id, long price, long quantity) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(price);
+        product.setQuantity(quantity);
+        return product;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.lab5.tenancy.TenantConnectionProvider;
+import org.example.lab5.tenancy.TenantFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the HTTP API against an in-process database with three tenants and
+ * checks that their products, counts and connection pools stay apart.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lab5-tenancy;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.max-lifetime=600000",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "lab5.products.purge.cron=-",
+        "lab5.products.archive.cron=-",
+        "lab5.products.search.rebuild-on-startup=false",
+        "lab5.tenancy.tenants=default,acme,globex",
+        "lab5.tenancy.tenant.acme.maximum-pool-size=2"
+})
+@AutoConfigureMockMvc
+public class TenantIsolationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TenantConnectionProvider connectionProvider;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void findById_OtherTenant_DoesNotSeeProduct() throws Exception {
+        String id = create("acme", "Anvil");
+
+        mockMvc.perform(get("/api/products/" + id).header(TenantFilter.TENANT_HEADER, "acme"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Anvil"));
+        mockMvc.perform(get("/api/products/" + id).header(TenantFilter.TENANT_HEADER, "globex"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/products/" + id))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void count_IsPartitionedByTenant() throws Exception {
+        long acme = count("acme");
+        long globex = count("globex");
+
+        create("acme", "Rocket");
+        create("acme", "Magnet");
+        create("globex", "Doomsday device");
+
+        assertEquals(acme + 2, count("acme"));
+        assertEquals(globex + 1, count("globex"));
+    }
+
+    @Test
+    void request_UnknownTenant_IsRejected() throws Exception {
+        mockMvc.perform(get("/api/products/count").header(TenantFilter.TENANT_HEADER, "initech"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void dataSource_EachTenantHasItsOwnPool() {
+        DataSource acme = connectionProvider.dataSource("acme");
+        DataSource globex = connectionProvider.dataSource("globex");
+
+        assertSame(dataSource, connectionProvider.dataSource("default"));
+        assertNotSame(acme, globex);
+        assertNotSame(dataSource, acme);
+        assertEquals(2, ((HikariDataSource) acme).getMaximumPoolSize());
+        assertEquals(5, ((HikariDataSource) globex).getMaximumPoolSize());
+    }
+
+    @Test
+    void dataSource_TenantPoolsInheritPrimaryPoolSettings() {
+        HikariDataSource primary = (HikariDataSource) dataSource;
+        HikariDataSource acme = (HikariDataSource) connectionProvider.dataSource("acme");
+
+        assertEquals(primary.getJdbcUrl(), acme.getJdbcUrl());
+        assertEquals(600_000L, acme.getMaxLifetime());
+        assertEquals("lab5-tenant-acme", acme.getPoolName());
+    }
+
+    private String create(String tenant, String name) throws Exception {
+        return mockMvc.perform(post("/api/products")
+                        .header(TenantFilter.TENANT_HEADER, tenant)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\",\"price\":10,\"quantity\":3}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private long count(String tenant) throws Exception {
+        return Long.parseLong(mockMvc.perform(get("/api/products/count")
+                        .param("mode", "EXACT")
+                        .header(TenantFilter.TENANT_HEADER, tenant))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
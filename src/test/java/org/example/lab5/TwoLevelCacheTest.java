@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2025. Vitalii Novik
+ */
+package org.example.lab5;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.lab5.cache.CacheCodec;
+import org.example.lab5.cache.InMemoryRemoteCache;
+import org.example.lab5.cache.TwoLevelCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TwoLevelCacheTest {
+
+    private InMemoryRemoteCache remote;
+
+    private TwoLevelCache<String> replicaA;
+
+    private TwoLevelCache<String> replicaB;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        remote = new InMemoryRemoteCache(Duration.ofMinutes(10));
+        replicaA = replica();
+        replicaB = replica();
+    }
+
+    @Test
+    void get_RepeatedCalls_ServedFromNearCache() {
+        assertEquals("v1", replicaA.get("k", this::load));
+        assertEquals("v1", replicaA.get("k", this::load));
+
+        assertEquals(1, loads.get());
+        assertEquals(0.5, replicaA.l1HitRatio());
+    }
+
+    @Test
+    void get_OtherReplica_ServedFromSharedTier() {
+        replicaA.get("k", this::load);
+
+        assertEquals("v1", replicaB.get("k", this::load));
+
+        assertEquals(1, loads.get());
+        assertEquals(1.0, replicaB.l2HitRatio());
+    }
+
+    @Test
+    void invalidate_DropsEntryOnEveryReplica() {
+        replicaA.get("k", this::load);
+        replicaB.get("k", this::load);
+
+        replicaA.invalidate("k");
+
+        assertEquals("v2", replicaB.get("k", this::load));
+        assertEquals("v2", replicaA.get("k", this::load));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_InvalidatedWhileLoading_DoesNotCacheStaleValue() {
+        String value = replicaA.get("k", () -> {
+            replicaB.invalidate("k");
+            return "stale";
+        });
+
+        assertEquals("stale", value);
+        assertEquals("v1", replicaA.get("k", this::load));
+        assertEquals("v1", replicaB.get("k", this::load));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_MissingValue_IsNotCached() {
+        assertNull(replicaA.get("k", () -> null));
+
+        assertEquals("v1", replicaA.get("k", this::load));
+    }
+
+    @Test
+    void get_ConcurrentMisses_LoadOnce() throws Exception {
+        int callers = 32;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                TwoLevelCache<String> replica = i % 2 == 0 ? replicaA : replicaB;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return replica.get("k", this::slowLoad);
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                assertEquals("v1", result.get());
+            }
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidate_VersionPastRetention_IsDropped() throws Exception {
+        InMemoryRemoteCache shortLived = new InMemoryRemoteCache(Duration.ofMillis(20));
+        long first = shortLived.invalidate("a");
+
+        Thread.sleep(50);
+        shortLived.invalidate("b");
+
+        assertEquals(0L, shortLived.version("a"));
+        assertTrue(shortLived.invalidate("a") > first);
+    }
+
+    @Test
+    void invalidate_VersionWithinRetention_IsKept() {
+        long version = remote.invalidate("a");
+        remote.invalidate("b");
+
+        assertEquals(version, remote.version("a"));
+    }
+
+    private TwoLevelCache<String> replica() {
+        return new TwoLevelCache<>("test", remote, new StringCodec(), new SimpleMeterRegistry(), 100,
+                Duration.ofMinutes(1), Duration.ofMinutes(10), Duration.ofSeconds(5));
+    }
+
+    private String load() {
+        return "v" + loads.incrementAndGet();
+    }
+
+    private String slowLoad() {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return load();
+    }
+
+    private static final class StringCodec implements CacheCodec<String> {
+
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}